@@ -0,0 +1,566 @@
+package dataaccess;
+
+import metrics.MetricsRegistry;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of database connections.
+ * <p>
+ * Callers get a connection that returns itself to the pool when closed, so
+ * the usual try-with-resource block keeps working. At most maxSize
+ * connections are open at once and callers wait up to connectionTimeoutMs
+ * for one to free up. Connections that have sat idle are checked with
+ * isValid before being handed out, and ones that are too old or have been
+ * idle too long are closed.
+ * <p>
+ * Each connection also keeps its most recently used prepared statements.
+ * Preparing the same SQL again hands back the cached statement, and closing
+ * it only clears its parameters and batch so it can be reused. Statements,
+ * metadata and result sets reached through a borrowed connection all report
+ * that connection as their owner, never the physical one underneath.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Opens a new physical connection
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection connect() throws SQLException;
+    }
+
+    /**
+     * Pool settings, all times in milliseconds except the validation timeout
+     */
+    public record Settings(int maxSize, long connectionTimeoutMs, long idleTimeoutMs, long maxLifetimeMs,
+                           int validationTimeoutSeconds, int statementCacheSize) {
+    }
+
+    /**
+     * A snapshot of the pool's counters
+     */
+    public record Stats(int open, int idle, long created, long closed, long borrowed, long timeouts,
+                        long totalWaitMicros, long maxWaitMicros, long statementHits, long statementMisses) {
+        public double averageWaitMicros() {
+            return (borrowed == 0) ? 0 : (double) totalWaitMicros / borrowed;
+        }
+    }
+
+    // Connections idle for less than this are handed out without a validation round trip.
+    private static final long VALIDATE_AFTER_IDLE_MS = 500;
+
+    private final ConnectionFactory factory;
+    private final Settings settings;
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+    private int open;
+    private boolean closed;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong totalWaitMicros = new AtomicLong();
+    private final AtomicLong maxWaitMicros = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+
+    private static class PooledConnection {
+        final Connection connection;
+        final long createdAt;
+        final Map<String, PreparedStatement> statements;
+        final Set<PreparedStatement> statementsInUse = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Set<Statement> uncachedStatements = Collections.newSetFromMap(new IdentityHashMap<>());
+        long lastUsed;
+
+        PooledConnection(Connection connection, int statementCacheSize) {
+            this.connection = connection;
+            this.createdAt = System.currentTimeMillis();
+            this.lastUsed = createdAt;
+            // Access-ordered, so the least recently used statement is evicted and closed first.
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() <= statementCacheSize || statementsInUse.contains(eldest.getValue())) {
+                        return false;
+                    }
+                    try {
+                        eldest.getValue().close();
+                    } catch (SQLException ignored) {
+                        // Evicted statements are not used again.
+                    }
+                    return true;
+                }
+            };
+        }
+    }
+
+    public ConnectionPool(ConnectionFactory factory, Settings settings) {
+        this.factory = factory;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxSize(), true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, settings.idleTimeoutMs() / 2);
+        evictor.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting for one to be returned if the pool is full
+     *
+     * @return a connection that goes back to the pool when it is closed
+     * @throws DataAccessException if no connection frees up in time or a new
+     * one cannot be opened
+     */
+    public Connection getConnection() throws DataAccessException {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(settings.connectionTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new DataAccessException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted waiting for a database connection");
+        }
+        recordWait(start);
+
+        try {
+            PooledConnection pooled = takeIdle();
+            while (pooled != null && !isUsable(pooled)) {
+                destroy(pooled);
+                pooled = takeIdle();
+            }
+            if (pooled == null) {
+                pooled = create();
+            }
+            return wrap(pooled);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    private void recordWait(long start) {
+        long waited = (System.nanoTime() - start) / 1000;
+        borrowed.incrementAndGet();
+        totalWaitMicros.addAndGet(waited);
+        maxWaitMicros.accumulateAndGet(waited, Math::max);
+    }
+
+    private synchronized PooledConnection takeIdle() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        return idle.pollFirst();
+    }
+
+    private PooledConnection create() throws SQLException {
+        Connection connection = factory.connect();
+        synchronized (this) {
+            open++;
+        }
+        created.incrementAndGet();
+        return new PooledConnection(connection, settings.statementCacheSize());
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        long now = System.currentTimeMillis();
+        if (now - pooled.createdAt >= settings.maxLifetimeMs()) {
+            return false;
+        }
+        if (now - pooled.lastUsed < VALIDATE_AFTER_IDLE_MS) {
+            return true;
+        }
+        try {
+            return pooled.connection.isValid(settings.validationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        resetStatements(pooled);
+        boolean keep;
+        try {
+            if (!pooled.connection.getAutoCommit()) {
+                pooled.connection.rollback();
+                pooled.connection.setAutoCommit(true);
+            }
+            keep = !pooled.connection.isClosed();
+        } catch (SQLException e) {
+            keep = false;
+        }
+        pooled.lastUsed = System.currentTimeMillis();
+        keep = keep && pooled.lastUsed - pooled.createdAt < settings.maxLifetimeMs();
+        synchronized (this) {
+            keep = keep && !closed;
+            if (keep) {
+                idle.addFirst(pooled);
+            }
+        }
+        if (!keep) {
+            destroy(pooled);
+        }
+        permits.release();
+    }
+
+    // Cached statements the caller forgot to close go back in the cache, so drop whatever
+    // parameters and batch rows they still hold before the next borrower can reuse them.
+    private static void resetStatements(PooledConnection pooled) {
+        for (PreparedStatement statement : pooled.statementsInUse) {
+            try {
+                statement.clearParameters();
+                statement.clearBatch();
+            } catch (SQLException e) {
+                pooled.statements.values().remove(statement);
+                try {
+                    statement.close();
+                } catch (SQLException ignored) {
+                    // The statement has already been dropped from the cache.
+                }
+            }
+        }
+        pooled.statementsInUse.clear();
+        // Statements that are not cached belong to the borrower alone, so any left open are closed.
+        for (Statement statement : pooled.uncachedStatements) {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+                // The statement is not used again.
+            }
+        }
+        pooled.uncachedStatements.clear();
+    }
+
+    private void destroy(PooledConnection pooled) {
+        synchronized (this) {
+            open--;
+        }
+        destroyed.incrementAndGet();
+        try {
+            pooled.connection.close();
+        } catch (SQLException ignored) {
+            // The connection is being thrown away anyway.
+        }
+    }
+
+    // Idle connections are taken from the front, so the stalest ones sit at the back.
+    // They are only unlinked under the lock; closing one can block on the network,
+    // so that happens afterwards without holding up borrowers.
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        List<PooledConnection> expired = new ArrayList<>();
+        synchronized (this) {
+            Iterator<PooledConnection> iterator = idle.descendingIterator();
+            while (iterator.hasNext()) {
+                PooledConnection pooled = iterator.next();
+                if (now - pooled.lastUsed >= settings.idleTimeoutMs()
+                        || now - pooled.createdAt >= settings.maxLifetimeMs()) {
+                    iterator.remove();
+                    expired.add(pooled);
+                }
+            }
+        }
+        for (PooledConnection pooled : expired) {
+            destroy(pooled);
+        }
+    }
+
+    private Connection wrap(PooledConnection pooled) {
+        boolean[] returned = {false};
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            if (!returned[0]) {
+                                returned[0] = true;
+                                release(pooled);
+                            }
+                            return null;
+                        }
+                        case "isClosed" -> {
+                            return returned[0] || pooled.connection.isClosed();
+                        }
+                        case "equals" -> {
+                            // Each wrapper is its own identity; the physical object must not decide equality.
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "toString" -> {
+                        }
+                        default -> {
+                            if (returned[0]) {
+                                throw new SQLException("Connection has already been returned to the pool");
+                            }
+                            if (method.getName().equals("unwrap") && ((Class<?>) args[0]).isInstance(proxy)) {
+                                // Unwrapping to a plain Connection must not hand out the pooled physical one.
+                                return proxy;
+                            }
+                            // Everything that can lead back to a connection is wrapped so it leads to this one.
+                            Connection owner = (Connection) proxy;
+                            switch (method.getName()) {
+                                case "prepareStatement" -> {
+                                    if (isCacheable(args)) {
+                                        return prepareCached(pooled, owner, returned, args);
+                                    }
+                                    PreparedStatement statement = (PreparedStatement) invoke(pooled.connection, method, args);
+                                    return wrap(pooled, owner, returned, statement, PreparedStatement.class, false);
+                                }
+                                case "prepareCall" -> {
+                                    CallableStatement statement = (CallableStatement) invoke(pooled.connection, method, args);
+                                    return wrap(pooled, owner, returned, statement, CallableStatement.class, false);
+                                }
+                                case "createStatement" -> {
+                                    Statement statement = (Statement) invoke(pooled.connection, method, args);
+                                    return wrap(pooled, owner, returned, statement, Statement.class, false);
+                                }
+                                case "getMetaData" -> {
+                                    DatabaseMetaData metaData = (DatabaseMetaData) invoke(pooled.connection, method, args);
+                                    return wrap(owner, returned, metaData);
+                                }
+                                default -> {
+                                }
+                            }
+                        }
+                    }
+                    return invoke(pooled.connection, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Only prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) are cached.
+    private boolean isCacheable(Object[] args) {
+        return settings.statementCacheSize() > 0
+                && (args.length == 1 || (args.length == 2 && args[1] instanceof Integer));
+    }
+
+    private PreparedStatement prepareCached(PooledConnection pooled, Connection owner, boolean[] connectionReturned,
+                                            Object[] args) throws SQLException {
+        String key = (args.length == 1) ? (String) args[0] : args[1] + ":" + args[0];
+        PreparedStatement statement = pooled.statements.get(key);
+        if (statement != null && pooled.statementsInUse.contains(statement)) {
+            // The cached copy is busy, e.g. a nested query using the same SQL, so hand out one that is not kept.
+            statementMisses.incrementAndGet();
+            PreparedStatement copy = prepare(pooled.connection, args);
+            return wrap(pooled, owner, connectionReturned, copy, PreparedStatement.class, false);
+        }
+        if (statement == null || statement.isClosed()) {
+            statementMisses.incrementAndGet();
+            statement = prepare(pooled.connection, args);
+            pooled.statements.put(key, statement);
+        } else {
+            statementHits.incrementAndGet();
+        }
+        pooled.statementsInUse.add(statement);
+        return wrap(pooled, owner, connectionReturned, statement, PreparedStatement.class, true);
+    }
+
+    private static PreparedStatement prepare(Connection connection, Object[] args) throws SQLException {
+        return (args.length == 1) ? connection.prepareStatement((String) args[0])
+                : connection.prepareStatement((String) args[0], (Integer) args[1]);
+    }
+
+    /**
+     * Wraps a statement so it reports the pooled connection as its owner and
+     * stops working once it or its connection has been closed. Closing a
+     * cached statement only clears it for the next caller; any other
+     * statement is really closed, at the latest when its connection returns.
+     */
+    private <T extends Statement> T wrap(PooledConnection pooled, Connection owner, boolean[] connectionReturned,
+                                         T statement, Class<T> type, boolean cached) {
+        if (!cached) {
+            pooled.uncachedStatements.add(statement);
+        }
+        boolean[] returned = {false};
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(),
+                new Class<?>[]{type}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            if (!returned[0]) {
+                                returned[0] = true;
+                                if (!cached) {
+                                    pooled.uncachedStatements.remove(statement);
+                                    statement.close();
+                                } else if (!connectionReturned[0]) {
+                                    // Once the connection is back in the pool the statement may already be someone else's.
+                                    pooled.statementsInUse.remove(statement);
+                                    PreparedStatement prepared = (PreparedStatement) statement;
+                                    prepared.clearParameters();
+                                    prepared.clearBatch();
+                                }
+                            }
+                            return null;
+                        }
+                        case "isClosed" -> {
+                            return returned[0] || connectionReturned[0] || statement.isClosed();
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "toString" -> {
+                        }
+                        default -> {
+                            if (returned[0] || connectionReturned[0]) {
+                                throw new SQLException("Statement has already been closed");
+                            }
+                            if (method.getName().equals("getConnection")) {
+                                return owner;
+                            }
+                            if (method.getName().equals("unwrap") && ((Class<?>) args[0]).isInstance(proxy)) {
+                                return proxy;
+                            }
+                        }
+                    }
+                    Object result = invoke(statement, method, args);
+                    return (result instanceof ResultSet resultSet)
+                            ? wrap(resultSet, (Statement) proxy, connectionReturned) : result;
+                }));
+    }
+
+    // Reports the connection proxy as the owner, and wraps the result sets it returns.
+    private static DatabaseMetaData wrap(Connection owner, boolean[] connectionReturned, DatabaseMetaData metaData) {
+        return (DatabaseMetaData) Proxy.newProxyInstance(DatabaseMetaData.class.getClassLoader(),
+                new Class<?>[]{DatabaseMetaData.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "getConnection" -> {
+                            return owner;
+                        }
+                        default -> {
+                        }
+                    }
+                    Object result = invoke(metaData, method, args);
+                    // Metadata result sets have no statement of the caller's to point back to.
+                    return (result instanceof ResultSet resultSet) ? wrap(resultSet, null, connectionReturned) : result;
+                });
+    }
+
+    // Reports the statement proxy, not the driver's statement, from getStatement.
+    private static ResultSet wrap(ResultSet resultSet, Statement statement, boolean[] connectionReturned) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "getStatement" -> {
+                            if (connectionReturned[0]) {
+                                throw new SQLException("Result set's connection has already been returned to the pool");
+                            }
+                            return statement;
+                        }
+                        case "unwrap" -> {
+                            if (((Class<?>) args[0]).isInstance(proxy)) {
+                                return proxy;
+                            }
+                        }
+                        default -> {
+                        }
+                    }
+                    return invoke(resultSet, method, args);
+                });
+    }
+
+    /**
+     * @return a snapshot of the pool's size, wait-time and statement cache counters
+     */
+    public synchronized Stats getStats() {
+        return new Stats(open, idle.size(), created.get(), destroyed.get(), borrowed.get(), timeouts.get(),
+                totalWaitMicros.get(), maxWaitMicros.get(), statementHits.get(), statementMisses.get());
+    }
+
+    /**
+     * Reports this pool's counters to a registry under db_pool_ names. They
+     * are read from {@link #getStats()} each time the metrics are written.
+     */
+    public void registerMetrics(MetricsRegistry registry) {
+        registry.gauge("db_pool_connections", "Open database connections, by state",
+                () -> getStats().open(), "state", "open");
+        registry.gauge("db_pool_connections", "Open database connections, by state",
+                () -> getStats().idle(), "state", "idle");
+        registry.counter("db_pool_connections_created_total", "Database connections opened",
+                () -> getStats().created());
+        registry.counter("db_pool_connections_closed_total", "Database connections closed",
+                () -> getStats().closed());
+        registry.counter("db_pool_borrows_total", "Connections handed out by the pool",
+                () -> getStats().borrowed());
+        registry.counter("db_pool_timeouts_total", "Callers that gave up waiting for a connection",
+                () -> getStats().timeouts());
+        registry.counter("db_pool_wait_seconds_total", "Time callers spent waiting for a connection",
+                () -> getStats().totalWaitMicros() / 1e6);
+        registry.gauge("db_pool_wait_max_seconds", "Longest wait for a connection",
+                () -> getStats().maxWaitMicros() / 1e6);
+        registry.counter("db_pool_statement_cache_total", "Prepared statement lookups, by result",
+                () -> getStats().statementHits(), "result", "hit");
+        registry.counter("db_pool_statement_cache_total", "Prepared statement lookups, by result",
+                () -> getStats().statementMisses(), "result", "miss");
+    }
+
+    /**
+     * Closes every idle connection. Connections that are still borrowed are
+     * closed when they are returned.
+     */
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+        List<PooledConnection> remaining;
+        synchronized (this) {
+            closed = true;
+            remaining = new ArrayList<>(idle);
+            idle.clear();
+        }
+        for (PooledConnection pooled : remaining) {
+            destroy(pooled);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package dataaccess;
+
+import metrics.MetricsRegistry;
+
+import java.sql.*;
+import java.util.List;
+import java.util.Properties;
+
+public class DatabaseManager {
+    private static final String DATABASE_NAME;
+    private static final String USER;
+    private static final String PASSWORD;
+    private static final String CONNECTION_URL;
+    private static final ConnectionPool.Settings POOL_SETTINGS;
+    private static ConnectionPool pool;
+
+    /*
+     * Load the database information for the db.properties file.
+     */
+    static {
+        try {
+            try (var propStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("db.properties")) {
+                if (propStream == null) {
+                    throw new Exception("Unable to load db.properties");
+                }
+                Properties props = new Properties();
+                props.load(propStream);
+                DATABASE_NAME = props.getProperty("db.name");
+                USER = props.getProperty("db.user");
+                PASSWORD = props.getProperty("db.password");
+
+                var host = props.getProperty("db.host");
+                var port = Integer.parseInt(props.getProperty("db.port"));
+                // Server-side statements make the per-connection statement cache pay off, and
+                // rewriting batches sends a whole batch of inserts as one multi-row INSERT.
+                CONNECTION_URL = String.format("jdbc:mysql://%s:%d?useServerPrepStmts=true&rewriteBatchedStatements=true",
+                        host, port);
+
+                POOL_SETTINGS = new ConnectionPool.Settings(
+                        Integer.parseInt(props.getProperty("db.pool.maxSize", "10")),
+                        Long.parseLong(props.getProperty("db.pool.connectionTimeoutMs", "5000")),
+                        Long.parseLong(props.getProperty("db.pool.idleTimeoutMs", "60000")),
+                        Long.parseLong(props.getProperty("db.pool.maxLifetimeMs", "1800000")),
+                        Integer.parseInt(props.getProperty("db.pool.validationTimeoutSeconds", "2")),
+                        Integer.parseInt(props.getProperty("db.pool.statementCacheSize", "64")));
+            }
+        } catch (Exception ex) {
+            throw new RuntimeException("unable to process db.properties. " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Creates the database if it does not already exist.
+     */
+    static void createDatabase() throws DataAccessException {
+        var statement = "CREATE DATABASE IF NOT EXISTS " + DATABASE_NAME;
+        try (var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+             var preparedStatement = conn.prepareStatement(statement)) {
+            preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Borrow a connection to the database from the connection pool, with the
+     * catalog set based upon the properties specified in db.properties.
+     * Connections to the database should be short-lived, and you must close
+     * the connection when you are done with it so it goes back to the pool.
+     * The easiest way to do that is with a try-with-resource block.
+     * <br/>
+     * <code>
+     * try (var conn = DatabaseManager.getConnection()) {
+     * // execute SQL statements.
+     * }
+     * </code>
+     */
+    static Connection getConnection() throws DataAccessException {
+        return getPool().getConnection();
+    }
+
+    /**
+     * Runs one statement for many rows of parameters as a single batch in one
+     * transaction, such as inserting several auth tokens or saving the games
+     * changed by a burst of moves.
+     *
+     * @param statement the SQL to run, with ? placeholders
+     * @param rows      the parameters for each execution
+     * @return one entry per row. For an INSERT ... VALUES statement
+     * Connector/J rewrites the batch into one multi-row insert and reports
+     * Statement.SUCCESS_NO_INFO for each row; other statements, such as
+     * UPDATE, are not rewritten that way and report each row's update count
+     */
+    static int[] executeBatch(String statement, List<Object[]> rows) throws DataAccessException {
+        try (var conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (var preparedStatement = conn.prepareStatement(statement)) {
+                for (Object[] row : rows) {
+                    setParameters(preparedStatement, row);
+                    preparedStatement.addBatch();
+                }
+                int[] counts = preparedStatement.executeBatch();
+                conn.commit();
+                return counts;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Runs several parameterless statements, such as clearing every table, as
+     * one batch in one transaction.
+     *
+     * @param statements the SQL statements to run, in order
+     */
+    static void executeStatements(String... statements) throws DataAccessException {
+        try (var conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (var batch = conn.createStatement()) {
+                for (String statement : statements) {
+                    batch.addBatch(statement);
+                }
+                batch.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    static void setParameters(PreparedStatement preparedStatement, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            var param = params[i];
+            if (param == null) {
+                preparedStatement.setNull(i + 1, Types.NULL);
+            } else if (param instanceof String text) {
+                preparedStatement.setString(i + 1, text);
+            } else if (param instanceof Integer number) {
+                preparedStatement.setInt(i + 1, number);
+            } else if (param instanceof Long number) {
+                preparedStatement.setLong(i + 1, number);
+            } else {
+                preparedStatement.setObject(i + 1, param);
+            }
+        }
+    }
+
+    /**
+     * @return the connection pool counters, for reporting wait times and usage
+     */
+    static ConnectionPool.Stats getPoolStats() {
+        return getPool().getStats();
+    }
+
+    private static synchronized ConnectionPool getPool() {
+        if (pool == null) {
+            pool = new ConnectionPool(() -> {
+                var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+                conn.setCatalog(DATABASE_NAME);
+                return conn;
+            }, POOL_SETTINGS);
+            pool.registerMetrics(MetricsRegistry.global());
+        }
+        return pool;
+    }
+}
@@ -0,0 +1,54 @@
+package server;
+
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import spark.*;
+
+import java.util.Set;
+
+public class Server {
+    private static final String START_ATTRIBUTE = "metrics.startNanos";
+    // Anything else is timed as "other", so unknown paths cannot add a series each.
+    private static final Set<String> TIMED_PATHS = Set.of("/user", "/session", "/game", "/db", "/metrics");
+
+    public int run(int desiredPort) {
+        Spark.port(desiredPort);
+
+        Spark.staticFiles.location("web");
+
+        // Register your endpoints and handle exceptions here.
+        Spark.before((req, res) -> req.attribute(START_ATTRIBUTE, System.nanoTime()));
+        Spark.afterAfter(this::recordRequest);
+        Spark.get("/metrics", this::metrics);
+
+        Spark.awaitInitialization();
+        return Spark.port();
+    }
+
+    public void stop() {
+        Spark.stop();
+        Spark.awaitStop();
+    }
+
+    private Object metrics(Request req, Response res) {
+        res.type(MetricsRegistry.CONTENT_TYPE);
+        return MetricsRegistry.global().scrape();
+    }
+
+    private void recordRequest(Request req, Response res) {
+        Long start = req.attribute(START_ATTRIBUTE);
+        if (start == null) {
+            return;
+        }
+        String path = req.pathInfo();
+        int slash = path.indexOf('/', 1);
+        String endpoint = (slash < 0) ? path : path.substring(0, slash);
+        if (!TIMED_PATHS.contains(endpoint)) {
+            endpoint = "other";
+        }
+        Histogram timer = MetricsRegistry.global().timer("http_request_seconds",
+                "Time to handle HTTP requests, by method and endpoint",
+                "method", req.requestMethod(), "path", endpoint);
+        timer.recordSince(start);
+    }
+}
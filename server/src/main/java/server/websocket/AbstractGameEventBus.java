@@ -0,0 +1,102 @@
+package server.websocket;
+
+import websocket.messages.ServerMessage;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Numbering, ordering checks and fan-out shared by the bus implementations
+ */
+abstract class AbstractGameEventBus implements GameEventBus {
+    private final String origin;
+    private final Map<Integer, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicLong> published = new ConcurrentHashMap<>();
+    private final Map<Stream, Long> received = new ConcurrentHashMap<>();
+    private volatile GapListener gapListener = (origin, gameID, firstMissing, lastMissing) -> {
+    };
+
+    // One node's events for one game.
+    private record Stream(String origin, int gameID) {
+    }
+
+    AbstractGameEventBus(String origin) {
+        this.origin = origin;
+    }
+
+    @Override
+    public GameEvent publish(int gameID, ServerMessage message) {
+        AtomicLong sequence = published.computeIfAbsent(gameID, id -> new AtomicLong());
+        // Numbering and sending happen together, so two threads publishing for one game cannot swap order.
+        synchronized (sequence) {
+            GameEvent event = new GameEvent(origin, gameID, sequence.incrementAndGet(), message);
+            deliver(event);
+            send(event);
+            return event;
+        }
+    }
+
+    /**
+     * Passes a numbered event on to the other nodes
+     */
+    abstract void send(GameEvent event);
+
+    /**
+     * Hands an event to the game's local subscribers, unless it is a duplicate
+     * or arrives after a later event from the same node. Skipped numbers are
+     * reported to the gap listener first.
+     */
+    void deliver(GameEvent event) {
+        Stream stream = new Stream(event.origin(), event.gameID());
+        Long last = received.get(stream);
+        if (last != null && event.sequence() <= last) {
+            return;
+        }
+        received.put(stream, event.sequence());
+        // The first event seen from a node only sets where its numbering starts.
+        if (last != null && event.sequence() > last + 1) {
+            reportGap(event.origin(), event.gameID(), last + 1, event.sequence() - 1);
+        }
+        for (Subscriber subscriber : subscribers.getOrDefault(event.gameID(), Set.of())) {
+            try {
+                subscriber.onEvent(event);
+            } catch (RuntimeException ignored) {
+                // One failing subscriber must not keep the event from the others.
+            }
+        }
+    }
+
+    void reportGap(String origin, int gameID, long firstMissing, long lastMissing) {
+        gapListener.onGap(origin, gameID, firstMissing, lastMissing);
+    }
+
+    String origin() {
+        return origin;
+    }
+
+    @Override
+    public void subscribe(int gameID, Subscriber subscriber) {
+        subscribers.computeIfAbsent(gameID, id -> new CopyOnWriteArraySet<>()).add(subscriber);
+    }
+
+    @Override
+    public void unsubscribe(int gameID, Subscriber subscriber) {
+        subscribers.computeIfPresent(gameID, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    @Override
+    public void setGapListener(GapListener listener) {
+        this.gapListener = listener;
+    }
+
+    @Override
+    public void close() {
+        subscribers.clear();
+    }
+}
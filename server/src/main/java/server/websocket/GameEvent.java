@@ -0,0 +1,15 @@
+package server.websocket;
+
+import websocket.messages.ServerMessage;
+
+/**
+ * A message for everyone watching a game, as carried by a {@link GameEventBus}
+ *
+ * @param origin   the node that published the event
+ * @param gameID   the game the event belongs to
+ * @param sequence the event's number among those its node published for this
+ *                 game, starting at 1
+ * @param message  the message to send to the game's clients
+ */
+public record GameEvent(String origin, int gameID, long sequence, ServerMessage message) {
+}
@@ -0,0 +1,58 @@
+package server.websocket;
+
+import websocket.messages.ServerMessage;
+
+/**
+ * Carries game events between server nodes, so a move handled on one node
+ * reaches observers connected to any node.
+ * <p>
+ * Events are keyed by game ID. Each node numbers the events it publishes for
+ * a game 1, 2, 3 and so on, and subscribers get each node's events for a game
+ * in that order. Late duplicates are dropped. When numbers are skipped, the
+ * gap listener is told which ones went missing, so the caller can resend the
+ * whole game instead.
+ */
+public interface GameEventBus extends AutoCloseable {
+
+    /**
+     * Receives the events of one game
+     */
+    @FunctionalInterface
+    interface Subscriber {
+        void onEvent(GameEvent event);
+    }
+
+    /**
+     * Told when events from a node went missing
+     */
+    @FunctionalInterface
+    interface GapListener {
+        void onGap(String origin, int gameID, long firstMissing, long lastMissing);
+    }
+
+    /**
+     * Sends a message to every subscriber of a game on every node, including
+     * this one
+     *
+     * @param gameID  the game the message is about
+     * @param message the message to send
+     * @return the event as it was numbered and sent
+     */
+    GameEvent publish(int gameID, ServerMessage message);
+
+    /**
+     * @param gameID     the game to receive events for
+     * @param subscriber called with each event, on the bus's delivery thread
+     */
+    void subscribe(int gameID, Subscriber subscriber);
+
+    void unsubscribe(int gameID, Subscriber subscriber);
+
+    /**
+     * @param listener called whenever events from another node were skipped
+     */
+    void setGapListener(GapListener listener);
+
+    @Override
+    void close();
+}
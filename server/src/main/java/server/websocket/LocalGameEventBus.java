@@ -0,0 +1,17 @@
+package server.websocket;
+
+/**
+ * A bus for a single server node. Events go straight to the subscribers on
+ * the publishing thread.
+ */
+public class LocalGameEventBus extends AbstractGameEventBus {
+
+    public LocalGameEventBus() {
+        super("local");
+    }
+
+    @Override
+    void send(GameEvent event) {
+        // There are no other nodes to send to.
+    }
+}
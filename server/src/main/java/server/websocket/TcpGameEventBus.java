@@ -0,0 +1,329 @@
+package server.websocket;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import websocket.messages.ServerMessage;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bus that sends events to the other server nodes over TCP.
+ * <p>
+ * Every node listens on its own address and is {@link #connect connected} to
+ * each of the others. Published events are queued and a sender thread writes
+ * them out in batches: it waits up to the linger time for more events after
+ * the first, and sends at most the batch size in one frame. A frame is a
+ * four-byte length followed by UTF-8 JSON naming the origin node and its
+ * events. A single selector thread reads frames from every peer without
+ * blocking and delivers their events in order.
+ * <p>
+ * A peer that cannot be reached loses the batches sent while it is down, and
+ * the connection is opened again for the next batch. The receiving node sees
+ * the skipped numbers and reports them to its gap listener.
+ */
+public class TcpGameEventBus extends AbstractGameEventBus {
+    static final int MAX_FRAME_BYTES = 1 << 20;
+    private static final Gson GSON = new Gson();
+
+    private final int maxBatch;
+    private final long lingerMillis;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final BlockingQueue<GameEvent> outbox = new LinkedBlockingQueue<>();
+    private final List<Peer> peers = new CopyOnWriteArrayList<>();
+    private final Thread sender;
+    private final Thread receiver;
+    private volatile boolean closed;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong batchesSent = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong gaps = new AtomicLong();
+    private final AtomicLong sendFailures = new AtomicLong();
+
+    /**
+     * Counts since the bus started
+     *
+     * @param published    events published on this node
+     * @param batchesSent  frames written to peers
+     * @param received     events read from peers, before duplicates are dropped
+     * @param gaps         runs of missing events reported to the gap listener
+     * @param sendFailures frames that could not be written to a peer
+     */
+    public record Stats(long published, long batchesSent, long received, long gaps, long sendFailures) {
+    }
+
+    private record Frame(String origin, List<Entry> events) {
+    }
+
+    // The message is sent along with its class, so subclasses survive the trip.
+    private record Entry(int gameID, long sequence, String type, JsonElement message) {
+    }
+
+    // A connection to another node, opened when the first batch is sent.
+    private static final class Peer {
+        private final InetSocketAddress address;
+        private SocketChannel channel;
+
+        private Peer(InetSocketAddress address) {
+            this.address = address;
+        }
+    }
+
+    // The part of a frame read so far from one connection.
+    private static final class Inbound {
+        private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        private ByteBuffer body;
+    }
+
+    /**
+     * @param nodeId       names this node to the others; must be unique
+     * @param listen       the address to accept peers on, port 0 for any free port
+     * @param maxBatch     the most events sent in one frame
+     * @param lingerMillis how long to wait for more events before sending a batch
+     * @throws IOException if the address cannot be bound
+     */
+    public TcpGameEventBus(String nodeId, InetSocketAddress listen, int maxBatch, long lingerMillis)
+            throws IOException {
+        super(nodeId);
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch must be at least 1");
+        }
+        this.maxBatch = maxBatch;
+        this.lingerMillis = lingerMillis;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(listen);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+
+        sender = new Thread(this::sendLoop, "event-bus-sender-" + nodeId);
+        receiver = new Thread(this::receiveLoop, "event-bus-receiver-" + nodeId);
+        sender.setDaemon(true);
+        receiver.setDaemon(true);
+        sender.start();
+        receiver.start();
+    }
+
+    /**
+     * @return the address this node accepts peers on
+     */
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    /**
+     * Sends this node's events to another node from now on. Each node must be
+     * connected to every other node for all of them to see every event.
+     */
+    public void connect(InetSocketAddress peer) {
+        peers.add(new Peer(peer));
+    }
+
+    public Stats getStats() {
+        return new Stats(published.get(), batchesSent.get(), received.get(), gaps.get(), sendFailures.get());
+    }
+
+    @Override
+    void send(GameEvent event) {
+        published.incrementAndGet();
+        outbox.add(event);
+    }
+
+    @Override
+    void reportGap(String origin, int gameID, long firstMissing, long lastMissing) {
+        gaps.incrementAndGet();
+        super.reportGap(origin, gameID, firstMissing, lastMissing);
+    }
+
+    private void sendLoop() {
+        List<GameEvent> batch = new ArrayList<>(maxBatch);
+        try {
+            while (!closed) {
+                GameEvent first = outbox.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < maxBatch) {
+                    GameEvent next = outbox.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                ByteBuffer frame = encode(origin(), batch);
+                for (Peer peer : peers) {
+                    write(peer, frame.duplicate());
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(Peer peer, ByteBuffer frame) {
+        try {
+            if (peer.channel == null) {
+                peer.channel = SocketChannel.open(peer.address);
+            }
+            while (frame.hasRemaining()) {
+                peer.channel.write(frame);
+            }
+            batchesSent.incrementAndGet();
+        } catch (IOException e) {
+            sendFailures.incrementAndGet();
+            closeQuietly(peer.channel);
+            peer.channel = null;
+        }
+    }
+
+    /**
+     * Writes events as one length-prefixed frame
+     */
+    static ByteBuffer encode(String origin, List<GameEvent> events) {
+        List<Entry> entries = new ArrayList<>(events.size());
+        for (GameEvent event : events) {
+            ServerMessage message = event.message();
+            entries.add(new Entry(event.gameID(), event.sequence(), message.getClass().getName(),
+                    GSON.toJsonTree(message)));
+        }
+        byte[] json = GSON.toJson(new Frame(origin, entries)).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + json.length);
+        frame.putInt(json.length).put(json).flip();
+        return frame;
+    }
+
+    private void receiveLoop() {
+        try {
+            while (!closed) {
+                selector.select();
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        read(key);
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            // The bus is closing.
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel != null) {
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, new Inbound());
+        }
+    }
+
+    private void read(SelectionKey key) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Inbound inbound = (Inbound) key.attachment();
+        try {
+            while (true) {
+                ByteBuffer target = inbound.body == null ? inbound.header : inbound.body;
+                int read = channel.read(target);
+                if (read < 0) {
+                    throw new IOException("Peer closed the connection");
+                }
+                if (target.hasRemaining()) {
+                    return;
+                }
+                if (inbound.body == null) {
+                    int length = inbound.header.flip().getInt();
+                    inbound.header.clear();
+                    if (length < 0 || length > MAX_FRAME_BYTES) {
+                        throw new IOException("Frame of " + length + " bytes is too large");
+                    }
+                    inbound.body = ByteBuffer.allocate(length);
+                } else {
+                    String json = new String(inbound.body.array(), StandardCharsets.UTF_8);
+                    inbound.body = null;
+                    receive(json);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // A broken or malformed stream cannot be resynchronised; the peer reconnects.
+            key.cancel();
+            closeQuietly(channel);
+        }
+    }
+
+    private void receive(String json) {
+        Frame frame = GSON.fromJson(json, Frame.class);
+        for (Entry entry : frame.events()) {
+            received.incrementAndGet();
+            ServerMessage message = GSON.fromJson(entry.message(), messageType(entry.type()));
+            deliver(new GameEvent(frame.origin(), entry.gameID(), entry.sequence(), message));
+        }
+    }
+
+    // Only message classes are created from the wire; anything else is read as a plain message.
+    private static Class<? extends ServerMessage> messageType(String name) {
+        try {
+            Class<?> type = Class.forName(name, false, TcpGameEventBus.class.getClassLoader());
+            if (ServerMessage.class.isAssignableFrom(type)) {
+                return type.asSubclass(ServerMessage.class);
+            }
+        } catch (ClassNotFoundException | LinkageError e) {
+            // Fall through to the base message.
+        }
+        return ServerMessage.class;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        sender.interrupt();
+        selector.wakeup();
+        try {
+            sender.join(1000);
+            receiver.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Peer peer : peers) {
+            closeQuietly(peer.channel);
+        }
+        for (SelectionKey key : selector.keys()) {
+            closeQuietly(key.channel());
+        }
+        closeQuietly(selector);
+        closeQuietly(server);
+        super.close();
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        if (resource == null) {
+            return;
+        }
+        try {
+            resource.close();
+        } catch (Exception ignored) {
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package dataaccess;
+
+import metrics.MetricsRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ConnectionPoolTests {
+
+    private final List<FakeConnection> physical = new ArrayList<>();
+    private ConnectionPool pool;
+
+    /**
+     * Stands in for a driver connection, recording what the pool does to it
+     */
+    private static class FakeConnection {
+        boolean valid = true;
+        boolean closed;
+        boolean autoCommit = true;
+        int validations;
+        int rollbacks;
+        final List<FakeStatement> statements = new ArrayList<>();
+        final Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "isValid" -> {
+                        validations++;
+                        yield valid;
+                    }
+                    case "isClosed" -> closed;
+                    case "close" -> {
+                        closed = true;
+                        yield null;
+                    }
+                    case "getAutoCommit" -> autoCommit;
+                    case "setAutoCommit" -> {
+                        autoCommit = (Boolean) args[0];
+                        yield null;
+                    }
+                    case "rollback" -> {
+                        rollbacks++;
+                        yield null;
+                    }
+                    case "prepareStatement", "prepareCall", "createStatement" -> {
+                        FakeStatement statement = new FakeStatement((Connection) proxy, method.getReturnType());
+                        statements.add(statement);
+                        yield statement.statement;
+                    }
+                    case "getMetaData" -> Proxy.newProxyInstance(DatabaseMetaData.class.getClassLoader(),
+                            new Class<?>[]{DatabaseMetaData.class}, (metaData, call, callArgs) -> switch (call.getName()) {
+                                case "getConnection" -> proxy;
+                                case "getTables" -> resultSet(null);
+                                default -> null;
+                            });
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    /**
+     * Stands in for a driver prepared statement
+     */
+    private static class FakeStatement {
+        boolean closed;
+        int clears;
+        final Map<Integer, Object> parameters = new HashMap<>();
+        int batchRows;
+        final Statement statement;
+
+        FakeStatement(Connection connection, Class<?> type) {
+            this.statement = (Statement) Proxy.newProxyInstance(type.getClassLoader(),
+                    new Class<?>[]{type}, (proxy, method, args) -> switch (method.getName()) {
+                        case "isClosed" -> closed;
+                        case "close" -> {
+                            closed = true;
+                            yield null;
+                        }
+                        case "clearParameters" -> {
+                            clears++;
+                            parameters.clear();
+                            yield null;
+                        }
+                        case "setString" -> {
+                            parameters.put((Integer) args[0], args[1]);
+                            yield null;
+                        }
+                        case "addBatch" -> {
+                            batchRows++;
+                            yield null;
+                        }
+                        case "clearBatch" -> {
+                            batchRows = 0;
+                            yield null;
+                        }
+                        case "executeBatch" -> {
+                            int[] counts = new int[batchRows];
+                            batchRows = 0;
+                            yield counts;
+                        }
+                        case "getConnection" -> connection;
+                        case "executeUpdate" -> 1;
+                        case "executeQuery", "getGeneratedKeys" -> resultSet((Statement) proxy);
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        default -> null;
+                    });
+        }
+    }
+
+    // A driver result set, which points back at the driver's own statement.
+    private static ResultSet resultSet(Statement statement) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getStatement" -> statement;
+                    case "next" -> false;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    @AfterEach
+    public void closePool() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private ConnectionPool createPool(int maxSize, long idleTimeoutMs, long maxLifetimeMs) {
+        return createPool(maxSize, idleTimeoutMs, maxLifetimeMs, 4);
+    }
+
+    private ConnectionPool createPool(int maxSize, long idleTimeoutMs, long maxLifetimeMs, int statementCacheSize) {
+        pool = new ConnectionPool(() -> {
+            FakeConnection fake = new FakeConnection();
+            physical.add(fake);
+            return fake.connection;
+        }, new ConnectionPool.Settings(maxSize, 100, idleTimeoutMs, maxLifetimeMs, 1, statementCacheSize));
+        return pool;
+    }
+
+    @Test
+    @DisplayName("Pool Never Opens More Than maxSize")
+    public void maxSizeBound() throws Exception {
+        createPool(2, 60_000, 60_000);
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+
+        Assertions.assertThrows(DataAccessException.class, () -> pool.getConnection());
+        Assertions.assertEquals(1, pool.getStats().timeouts());
+        Assertions.assertEquals(2, physical.size());
+
+        first.close();
+        try (Connection third = pool.getConnection()) {
+            Assertions.assertFalse(third.isClosed());
+        }
+        second.close();
+        Assertions.assertEquals(2, physical.size(), "Returned connections should be reused");
+        Assertions.assertEquals(2, pool.getStats().idle());
+    }
+
+    @Test
+    @DisplayName("Connections Are Validated After Sitting Idle")
+    public void validatedAfterIdle() throws Exception {
+        createPool(1, 60_000, 60_000);
+        pool.getConnection().close();
+        pool.getConnection().close();
+        Assertions.assertEquals(0, physical.get(0).validations, "Recently used connections skip validation");
+
+        Thread.sleep(600);
+        physical.get(0).valid = false;
+        pool.getConnection().close();
+
+        Assertions.assertEquals(1, physical.get(0).validations);
+        Assertions.assertTrue(physical.get(0).closed, "Invalid connection should be closed");
+        Assertions.assertEquals(2, physical.size(), "Invalid connection should be replaced");
+        Assertions.assertEquals(1, pool.getStats().open());
+    }
+
+    @Test
+    @DisplayName("Idle Connections Are Evicted")
+    public void idleEviction() throws Exception {
+        createPool(2, 200, 60_000);
+        pool.getConnection().close();
+        Assertions.assertEquals(1, pool.getStats().idle());
+
+        // The evictor runs at most once a second, and closes connections after unlinking them.
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (pool.getStats().open() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        Assertions.assertEquals(0, pool.getStats().idle());
+        Assertions.assertEquals(0, pool.getStats().open());
+        Assertions.assertTrue(physical.get(0).closed);
+    }
+
+    @Test
+    @DisplayName("Connections Past Their Lifetime Are Retired")
+    public void maxLifetime() throws Exception {
+        createPool(1, 60_000, 150);
+        Connection connection = pool.getConnection();
+        Thread.sleep(200);
+        connection.close();
+
+        Assertions.assertTrue(physical.get(0).closed, "Expired connection should be closed on return");
+        Assertions.assertEquals(0, pool.getStats().idle());
+
+        pool.getConnection().close();
+        Assertions.assertEquals(2, physical.size());
+    }
+
+    @Test
+    @DisplayName("Open Transaction Is Rolled Back On Return")
+    public void rollbackOnReturn() throws Exception {
+        createPool(1, 60_000, 60_000);
+        Connection connection = pool.getConnection();
+        connection.setAutoCommit(false);
+        connection.close();
+
+        FakeConnection fake = physical.get(0);
+        Assertions.assertEquals(1, fake.rollbacks);
+        Assertions.assertTrue(fake.autoCommit);
+        Assertions.assertFalse(fake.closed);
+        Assertions.assertTrue(connection.isClosed());
+        Assertions.assertThrows(Exception.class, () -> connection.setAutoCommit(false),
+                "A returned connection should not be usable");
+
+        pool.getConnection().close();
+        Assertions.assertEquals(1, fake.rollbacks, "Autocommit connections need no rollback");
+    }
+
+    @Test
+    @DisplayName("Closing The Pool With Connections Borrowed")
+    public void closeWhileBorrowed() throws Exception {
+        createPool(2, 60_000, 60_000);
+        Connection borrowed = pool.getConnection();
+        pool.getConnection().close();
+
+        pool.close();
+        Assertions.assertTrue(physical.get(1).closed, "Idle connections close with the pool");
+        Assertions.assertFalse(physical.get(0).closed, "Borrowed connections stay open until returned");
+        Assertions.assertFalse(borrowed.isClosed());
+        Assertions.assertThrows(DataAccessException.class, () -> pool.getConnection());
+
+        borrowed.close();
+        Assertions.assertTrue(physical.get(0).closed);
+        Assertions.assertEquals(0, pool.getStats().open());
+    }
+
+    @Test
+    @DisplayName("Prepared Statements Are Reused Across Borrows")
+    public void statementCacheHits() throws Exception {
+        createPool(1, 60_000, 60_000);
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+            statement.executeUpdate();
+        }
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+            statement.executeUpdate();
+        }
+
+        FakeConnection fake = physical.get(0);
+        Assertions.assertEquals(1, fake.statements.size());
+        Assertions.assertFalse(fake.statements.get(0).closed, "Cached statement should stay open");
+        Assertions.assertEquals(2, fake.statements.get(0).clears, "Closing should only clear parameters");
+        Assertions.assertEquals(1, pool.getStats().statementHits());
+        Assertions.assertEquals(1, pool.getStats().statementMisses());
+    }
+
+    @Test
+    @DisplayName("Least Recently Used Statement Is Evicted")
+    public void statementCacheEviction() throws Exception {
+        createPool(1, 60_000, 60_000, 2);
+        try (Connection connection = pool.getConnection()) {
+            for (String sql : List.of("SELECT 1", "SELECT 2", "SELECT 1", "SELECT 3")) {
+                connection.prepareStatement(sql).close();
+            }
+        }
+
+        List<FakeStatement> statements = physical.get(0).statements;
+        Assertions.assertEquals(3, statements.size());
+        Assertions.assertFalse(statements.get(0).closed, "SELECT 1 was used recently and should stay cached");
+        Assertions.assertTrue(statements.get(1).closed, "SELECT 2 was least recently used and should be evicted");
+        Assertions.assertFalse(statements.get(2).closed);
+    }
+
+    @Test
+    @DisplayName("Busy Cached Statement Is Not Shared")
+    public void busyCachedStatement() throws Exception {
+        createPool(1, 60_000, 60_000);
+        try (Connection connection = pool.getConnection()) {
+            PreparedStatement outer = connection.prepareStatement("SELECT 1");
+            PreparedStatement inner = connection.prepareStatement("SELECT 1");
+
+            List<FakeStatement> statements = physical.get(0).statements;
+            Assertions.assertEquals(2, statements.size(), "A busy cached statement needs a second copy");
+            inner.close();
+            Assertions.assertTrue(statements.get(1).closed, "The uncached copy is really closed");
+            Assertions.assertFalse(outer.isClosed());
+            outer.close();
+            Assertions.assertFalse(statements.get(0).closed);
+        }
+    }
+
+    @Test
+    @DisplayName("Statements Do Not Leak The Physical Connection")
+    public void statementConnectionIsTheProxy() throws Exception {
+        createPool(1, 60_000, 60_000);
+        Connection connection = pool.getConnection();
+        PreparedStatement statement = connection.prepareStatement("SELECT 1");
+
+        Assertions.assertSame(connection, statement.getConnection());
+        Assertions.assertSame(connection, connection.unwrap(Connection.class));
+        Assertions.assertSame(statement, statement.unwrap(PreparedStatement.class));
+
+        statement.close();
+        Assertions.assertTrue(statement.isClosed());
+        Assertions.assertThrows(SQLException.class, statement::executeUpdate);
+        Assertions.assertThrows(SQLException.class, statement::getConnection);
+        statement.close();
+        Assertions.assertEquals(1, physical.get(0).statements.get(0).clears, "A second close does nothing");
+
+        PreparedStatement forgotten = connection.prepareStatement("SELECT 1");
+        connection.close();
+        Assertions.assertTrue(forgotten.isClosed());
+        Assertions.assertThrows(SQLException.class, forgotten::executeUpdate,
+                "Statements stop working once their connection is returned");
+    }
+
+    @Test
+    @DisplayName("Wrappers Are Equal Only To Themselves")
+    public void wrapperIdentity() throws Exception {
+        createPool(1, 60_000, 60_000);
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+            Assertions.assertEquals(connection, connection);
+            Assertions.assertEquals(statement, statement);
+            Assertions.assertNotEquals(connection, physical.get(0).connection);
+            Assertions.assertNotEquals(statement, physical.get(0).statements.get(0).statement);
+
+            Set<Object> wrappers = new HashSet<>(List.of(connection, statement));
+            Assertions.assertTrue(wrappers.contains(connection));
+            Assertions.assertTrue(wrappers.contains(statement));
+        }
+    }
+
+    @Test
+    @DisplayName("Forgotten Statement Is Reset For The Next Borrower")
+    public void forgottenStatementIsReset() throws Exception {
+        createPool(1, 60_000, 60_000);
+        Connection first = pool.getConnection();
+        PreparedStatement forgotten = first.prepareStatement("INSERT INTO auth VALUES (?)");
+        forgotten.setString(1, "stale");
+        forgotten.addBatch();
+        forgotten.addBatch();
+        forgotten.setString(1, "left over");
+        first.close();
+
+        FakeStatement fake = physical.get(0).statements.get(0);
+        Assertions.assertEquals(0, fake.batchRows, "Batch rows should not survive the return");
+        Assertions.assertTrue(fake.parameters.isEmpty(), "Parameters should not survive the return");
+
+        try (Connection second = pool.getConnection();
+             PreparedStatement statement = second.prepareStatement("INSERT INTO auth VALUES (?)")) {
+            Assertions.assertEquals(1, physical.get(0).statements.size(), "The cached statement should be reused");
+            statement.setString(1, "fresh");
+            statement.addBatch();
+            Assertions.assertEquals(1, statement.executeBatch().length, "Only the new borrower's row is sent");
+        }
+    }
+
+    @Test
+    @DisplayName("No JDBC Object Leads Back To The Physical Connection")
+    public void everyPathLeadsToTheProxy() throws Exception {
+        createPool(1, 60_000, 60_000);
+        try (Connection connection = pool.getConnection()) {
+            Statement created = connection.createStatement();
+            CallableStatement call = connection.prepareCall("{call cleanup()}");
+            PreparedStatement prepared = connection.prepareStatement("SELECT 1");
+            DatabaseMetaData metaData = connection.getMetaData();
+
+            Assertions.assertSame(connection, created.getConnection());
+            Assertions.assertSame(connection, call.getConnection());
+            Assertions.assertSame(connection, metaData.getConnection());
+
+            ResultSet createdResults = created.executeQuery("SELECT 1");
+            Assertions.assertSame(created, createdResults.getStatement());
+            Assertions.assertSame(connection, createdResults.getStatement().getConnection());
+            Assertions.assertSame(prepared, prepared.executeQuery().getStatement());
+            Assertions.assertSame(prepared, prepared.getGeneratedKeys().getStatement());
+            Assertions.assertNull(metaData.getTables(null, null, "%", null).getStatement());
+
+            created.close();
+            Assertions.assertTrue(physical.get(0).statements.get(0).closed, "Plain statements are really closed");
+            Assertions.assertFalse(physical.get(0).closed);
+        }
+    }
+
+    @Test
+    @DisplayName("Uncached Statements Close With Their Connection")
+    public void uncachedStatementsCloseOnReturn() throws Exception {
+        createPool(1, 60_000, 60_000);
+        Connection connection = pool.getConnection();
+        Statement forgotten = connection.createStatement();
+        connection.prepareCall("{call cleanup()}");
+        connection.close();
+
+        Assertions.assertTrue(forgotten.isClosed());
+        for (FakeStatement statement : physical.get(0).statements) {
+            Assertions.assertTrue(statement.closed, "Forgotten uncached statements should be closed on return");
+        }
+        Assertions.assertFalse(physical.get(0).closed, "The physical connection stays in the pool");
+    }
+
+    @Test
+    @DisplayName("Stats Are Exported As Metrics")
+    public void statsExported() throws Exception {
+        createPool(2, 60_000, 60_000);
+        MetricsRegistry registry = new MetricsRegistry();
+        pool.registerMetrics(registry);
+        try (Connection connection = pool.getConnection()) {
+            connection.prepareStatement("SELECT 1").close();
+            connection.prepareStatement("SELECT 1").close();
+        }
+
+        String text = registry.scrape();
+        for (String line : List.of("# TYPE db_pool_connections gauge", "db_pool_connections{state=\"open\"} 1",
+                "db_pool_connections{state=\"idle\"} 1", "db_pool_connections_created_total 1",
+                "db_pool_borrows_total 1", "db_pool_timeouts_total 0",
+                "db_pool_statement_cache_total{result=\"hit\"} 1",
+                "db_pool_statement_cache_total{result=\"miss\"} 1")) {
+            Assertions.assertTrue(text.lines().anyMatch(line::equals), "Missing " + line + " in\n" + text);
+        }
+    }
+}
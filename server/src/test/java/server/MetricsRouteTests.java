@@ -0,0 +1,52 @@
+package server;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+public class MetricsRouteTests {
+
+    private static Server server;
+    private static int port;
+
+    @BeforeAll
+    public static void startServer() {
+        server = new Server();
+        port = server.run(0);
+    }
+
+    @AfterAll
+    public static void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("Metrics Served In Prometheus Format")
+    public void metricsRoute() throws Exception {
+        new ChessGame().makeMove(new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null));
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/metrics")).build();
+        client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals("text/plain; version=0.0.4; charset=utf-8",
+                response.headers().firstValue("Content-Type").orElse(null));
+        Assertions.assertTrue(response.body().lines().anyMatch(
+                        line -> line.startsWith("chess_rules_seconds_count{method=\"makeMove\"} ")),
+                "Rules engine timers should be exported:\n" + response.body());
+        Assertions.assertTrue(response.body().lines().anyMatch(
+                        line -> line.startsWith("http_request_seconds_count{method=\"GET\",path=\"/metrics\"} ")),
+                "Earlier requests should have been timed:\n" + response.body());
+    }
+}
@@ -0,0 +1,139 @@
+package server.websocket;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import websocket.messages.ServerMessage;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class GameEventBusTests {
+
+    private static final InetSocketAddress LOOPBACK = new InetSocketAddress("127.0.0.1", 0);
+
+    // Stands in for the game messages, to check that subclasses keep their type and fields.
+    public static class NoteMessage extends ServerMessage {
+        private final String note;
+
+        public NoteMessage(String note) {
+            super(ServerMessageType.NOTIFICATION);
+            this.note = note;
+        }
+    }
+
+    @Test
+    @DisplayName("Local Bus Delivers By Game")
+    public void localDelivery() {
+        try (LocalGameEventBus bus = new LocalGameEventBus()) {
+            List<GameEvent> first = new ArrayList<>();
+            List<GameEvent> second = new ArrayList<>();
+            GameEventBus.Subscriber firstSubscriber = first::add;
+            bus.subscribe(1, firstSubscriber);
+            bus.subscribe(2, second::add);
+
+            bus.publish(1, new NoteMessage("a"));
+            bus.publish(2, new NoteMessage("b"));
+            bus.publish(1, new NoteMessage("c"));
+            bus.unsubscribe(1, firstSubscriber);
+            bus.publish(1, new NoteMessage("d"));
+
+            Assertions.assertEquals(List.of(1L, 2L), first.stream().map(GameEvent::sequence).toList(),
+                    "Game 1 should get its own events, numbered in order, until it unsubscribes");
+            Assertions.assertEquals(1, second.size(), "Game 2 should only get its own event");
+            Assertions.assertEquals(1, second.get(0).sequence(), "Each game should be numbered separately");
+        }
+    }
+
+    @Test
+    @DisplayName("Loopback Batches In Order")
+    public void loopbackOrder() throws Exception {
+        try (TcpGameEventBus a = new TcpGameEventBus("a", LOOPBACK, 64, 50);
+             TcpGameEventBus b = new TcpGameEventBus("b", LOOPBACK, 64, 50)) {
+            a.connect(b.getAddress());
+            b.connect(a.getAddress());
+            BlockingQueue<GameEvent> atB = new LinkedBlockingQueue<>();
+            BlockingQueue<GameEvent> atA = new LinkedBlockingQueue<>();
+            b.subscribe(7, atB::add);
+            a.subscribe(7, atA::add);
+
+            int count = 40;
+            for (int i = 0; i < count; i++) {
+                a.publish(7, new NoteMessage("move " + i));
+            }
+            for (int i = 1; i <= count; i++) {
+                GameEvent event = atB.poll(5, TimeUnit.SECONDS);
+                Assertions.assertNotNull(event, "Event " + i + " should reach the other node");
+                Assertions.assertEquals("a", event.origin());
+                Assertions.assertEquals(i, event.sequence(), "Events should arrive in the order published");
+                NoteMessage message = Assertions.assertInstanceOf(NoteMessage.class, event.message(),
+                        "The message should keep its class across the wire");
+                Assertions.assertEquals("move " + (i - 1), message.note);
+                Assertions.assertEquals(ServerMessage.ServerMessageType.NOTIFICATION,
+                        message.getServerMessageType());
+            }
+            Assertions.assertEquals(count, atA.size(), "The publishing node should deliver to its own subscribers");
+            Assertions.assertTrue(a.getStats().batchesSent() < count,
+                    "Events published together should share frames, sent " + a.getStats().batchesSent());
+
+            b.publish(7, new NoteMessage("reply"));
+            GameEvent reply = pollFor(atA, "b");
+            Assertions.assertEquals(1, reply.sequence(), "Each node should number its own events");
+        }
+    }
+
+    @Test
+    @DisplayName("Gaps Reported And Duplicates Dropped")
+    public void gapsAndDuplicates() throws Exception {
+        try (TcpGameEventBus bus = new TcpGameEventBus("a", LOOPBACK, 16, 0)) {
+            BlockingQueue<GameEvent> delivered = new LinkedBlockingQueue<>();
+            BlockingQueue<long[]> gaps = new LinkedBlockingQueue<>();
+            bus.subscribe(3, delivered::add);
+            bus.setGapListener((origin, gameID, firstMissing, lastMissing) ->
+                    gaps.add(new long[]{gameID, firstMissing, lastMissing}));
+
+            try (SocketChannel peer = SocketChannel.open(bus.getAddress())) {
+                write(peer, event(3, 1), event(3, 4));
+                write(peer, event(3, 4), event(3, 2), event(3, 5));
+            }
+
+            Assertions.assertEquals(1, delivered.poll(5, TimeUnit.SECONDS).sequence());
+            Assertions.assertEquals(4, delivered.poll(5, TimeUnit.SECONDS).sequence());
+            Assertions.assertEquals(5, delivered.poll(5, TimeUnit.SECONDS).sequence());
+            Assertions.assertArrayEquals(new long[]{3, 2, 3}, gaps.poll(5, TimeUnit.SECONDS),
+                    "Events 2 and 3 of game 3 should be reported missing");
+            Assertions.assertTrue(delivered.isEmpty(), "The repeated 4 and the late 2 should be dropped");
+            Assertions.assertTrue(gaps.isEmpty(), "Only one gap should be reported");
+            Assertions.assertEquals(5, bus.getStats().received());
+            Assertions.assertEquals(1, bus.getStats().gaps());
+        }
+    }
+
+    private static GameEvent event(int gameID, long sequence) {
+        return new GameEvent("remote", gameID, sequence, new NoteMessage("n" + sequence));
+    }
+
+    private static void write(SocketChannel channel, GameEvent... events) throws IOException {
+        ByteBuffer frame = TcpGameEventBus.encode("remote", List.of(events));
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    private static GameEvent pollFor(BlockingQueue<GameEvent> queue, String origin) throws InterruptedException {
+        while (true) {
+            GameEvent event = queue.poll(5, TimeUnit.SECONDS);
+            Assertions.assertNotNull(event, "An event from " + origin + " should arrive");
+            if (event.origin().equals(origin)) {
+                return event;
+            }
+        }
+    }
+}
@@ -35,6 +35,8 @@ public class ChessBoard {
     }
 
     private ChessPiece[][] squares = new ChessPiece[8][8];
+    private final ChessEvaluation evaluation = new ChessEvaluation();
+    private long hash;
     public ChessBoard() {
     }
     /**
@@ -44,6 +46,15 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
+        ChessPiece replaced = squares[position.getRow()-1][position.getColumn()-1];
+        if (replaced != null) {
+            evaluation.removePiece(replaced, position);
+            hash ^= ZobristHash.pieceKey(replaced, position);
+        }
+        if (piece != null) {
+            evaluation.addPiece(piece, position);
+            hash ^= ZobristHash.pieceKey(piece, position);
+        }
         squares[position.getRow()-1][position.getColumn()-1] = piece;
     }
 
@@ -89,5 +100,41 @@ public class ChessBoard {
         squares[7][3] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
         squares[0][4] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
         squares[7][4] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        recomputeRunningState();
+    }
+
+    /**
+     * Gets the evaluation of this board, which is kept up to date as pieces
+     * are added and removed
+     *
+     * @return the running evaluation for this board
+     */
+    public ChessEvaluation getEvaluation() {
+        return evaluation;
+    }
+
+    /**
+     * Gets the Zobrist key of the pieces on this board, which is kept up to
+     * date as pieces are added and removed
+     *
+     * @return the 64-bit position key, not including whose turn it is
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    // Only needed when squares is rewritten without going through addPiece.
+    private void recomputeRunningState() {
+        evaluation.clear();
+        hash = 0L;
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                if (squares[i][j] != null) {
+                    ChessPosition position = new ChessPosition(i + 1, j + 1);
+                    evaluation.addPiece(squares[i][j], position);
+                    hash ^= ZobristHash.pieceKey(squares[i][j], position);
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,191 @@
+package chess;
+
+/**
+ * Static evaluation of a chessboard built from material, piece-square tables
+ * and a game phase used to blend middle-game and endgame scores.
+ * <p>
+ * The terms are kept as running sums so that adding or removing a piece only
+ * touches the square that changed instead of rescanning the whole board.
+ * Scores are in centipawns from white's point of view.
+ */
+public class ChessEvaluation {
+    // Indexed by PieceType ordinal: KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN
+    private static final int[] MIDGAME_VALUE = {0, 1025, 365, 337, 477, 82};
+    private static final int[] ENDGAME_VALUE = {0, 936, 297, 281, 512, 94};
+    private static final int[] PHASE_WEIGHT = {0, 4, 1, 1, 2, 0};
+    public static final int MAX_PHASE = 24;
+
+    // Tables are written from white's side with the 8th rank on top, so a1 is
+    // the first entry of the last line.
+    private static final int[] PAWN_TABLE = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int[] KNIGHT_TABLE = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] BISHOP_TABLE = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] ROOK_TABLE = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0
+    };
+    private static final int[] QUEEN_TABLE = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20
+    };
+    private static final int[] KING_MIDGAME_TABLE = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20
+    };
+    private static final int[] KING_ENDGAME_TABLE = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    private static final int[][] MIDGAME_TABLES = {
+            KING_MIDGAME_TABLE, QUEEN_TABLE, BISHOP_TABLE, KNIGHT_TABLE, ROOK_TABLE, PAWN_TABLE
+    };
+    private static final int[][] ENDGAME_TABLES = {
+            KING_ENDGAME_TABLE, QUEEN_TABLE, BISHOP_TABLE, KNIGHT_TABLE, ROOK_TABLE, PAWN_TABLE
+    };
+
+    private int midgame;
+    private int endgame;
+    private int phase;
+
+    /**
+     * Adds the contribution of a piece standing on the given position
+     *
+     * @param piece    the piece that was placed
+     * @param position where the piece was placed
+     */
+    void addPiece(ChessPiece piece, ChessPosition position) {
+        update(piece, position, 1);
+    }
+
+    /**
+     * Removes the contribution of a piece that left the given position
+     *
+     * @param piece    the piece that was removed
+     * @param position where the piece was removed from
+     */
+    void removePiece(ChessPiece piece, ChessPosition position) {
+        update(piece, position, -1);
+    }
+
+    /**
+     * Forgets every piece, leaving the evaluation of an empty board
+     */
+    void clear() {
+        midgame = 0;
+        endgame = 0;
+        phase = 0;
+    }
+
+    private void update(ChessPiece piece, ChessPosition position, int direction) {
+        int type = piece.getPieceType().ordinal();
+        int square = tableIndex(piece.getTeamColor(), position);
+        int sign = (piece.getTeamColor() == ChessGame.TeamColor.WHITE) ? direction : -direction;
+        midgame += sign * (MIDGAME_VALUE[type] + MIDGAME_TABLES[type][square]);
+        endgame += sign * (ENDGAME_VALUE[type] + ENDGAME_TABLES[type][square]);
+        phase += direction * PHASE_WEIGHT[type];
+    }
+
+    // Black reads the tables mirrored top to bottom.
+    private static int tableIndex(ChessGame.TeamColor color, ChessPosition position) {
+        int row = (color == ChessGame.TeamColor.WHITE) ? 8 - position.getRow() : position.getRow() - 1;
+        return row * 8 + (position.getColumn() - 1);
+    }
+
+    /**
+     * @return how much non-pawn material is left, from 0 (bare kings and
+     * pawns) up to MAX_PHASE (the starting position)
+     */
+    public int getPhase() {
+        return Math.min(phase, MAX_PHASE);
+    }
+
+    /**
+     * Blends the middle-game and endgame scores by the current phase
+     *
+     * @return the evaluation in centipawns, positive when white is better
+     */
+    public int evaluate() {
+        int midgamePhase = getPhase();
+        return (midgame * midgamePhase + endgame * (MAX_PHASE - midgamePhase)) / MAX_PHASE;
+    }
+
+    /**
+     * @param teamColor the team to evaluate for
+     * @return the evaluation in centipawns, positive when the given team is better
+     */
+    public int evaluate(ChessGame.TeamColor teamColor) {
+        return (teamColor == ChessGame.TeamColor.WHITE) ? evaluate() : -evaluate();
+    }
+
+    /**
+     * Evaluates a board from scratch without using any running sums
+     *
+     * @param board the board to evaluate
+     * @return the evaluation in centipawns, positive when white is better
+     */
+    public static int evaluate(ChessBoard board) {
+        ChessEvaluation evaluation = new ChessEvaluation();
+        for (int i = 1; i <= 8; i++) {
+            for (int j = 1; j <= 8; j++) {
+                ChessPosition position = new ChessPosition(i, j);
+                ChessPiece piece = board.getPiece(position);
+                if (piece != null) {
+                    evaluation.addPiece(piece, position);
+                }
+            }
+        }
+        return evaluation.evaluate();
+    }
+}
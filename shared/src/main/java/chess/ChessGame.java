@@ -1,5 +1,8 @@
 package chess;
 
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+
 import java.util.ArrayList;
 import java.util.Collection;
 
@@ -11,6 +14,15 @@ import java.util.Collection;
  */
 
 public class ChessGame {
+    // Run with -Dchess.verifyUnchecked=true to validate moves passed to applyUnchecked.
+    private static final boolean VERIFY_UNCHECKED = Boolean.getBoolean("chess.verifyUnchecked");
+    private static final String RULES_TIME = "chess_rules_seconds";
+    private static final String RULES_HELP = "Time spent in the rules engine, by method";
+    private static final Histogram MAKE_MOVE_TIME = rulesTimer("makeMove");
+    private static final Histogram CHECK_TIME = rulesTimer("isInCheck");
+    private static final Histogram CHECKMATE_TIME = rulesTimer("isInCheckmate");
+    private static final Histogram STALEMATE_TIME = rulesTimer("isInStalemate");
+
     private ChessBoard gameBoard;
     private TeamColor teamTurn;
 
@@ -64,6 +76,26 @@ public class ChessGame {
         return validMoves;
     }
 
+    /**
+     * Gets every valid move for the given team
+     *
+     * @param teamColor the team to get valid moves for
+     * @return all valid moves for pieces of that team
+     */
+    public Collection<ChessMove> allValidMoves(TeamColor teamColor) {
+        Collection<ChessMove> moves = new ArrayList<>();
+        for (int i = 1; i <= 8; i++) {
+            for (int j = 1; j <= 8; j++) {
+                ChessPosition position = new ChessPosition(i, j);
+                ChessPiece piece = gameBoard.getPiece(position);
+                if (piece != null && piece.getTeamColor() == teamColor) {
+                    moves.addAll(validMoves(position));
+                }
+            }
+        }
+        return moves;
+    }
+
     /**
      * Checks if the move will cause check
      *
@@ -85,6 +117,15 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
+        long start = System.nanoTime();
+        try {
+            move(move);
+        } finally {
+            MAKE_MOVE_TIME.recordSince(start);
+        }
+    }
+
+    private void move(ChessMove move) throws InvalidMoveException {
         if (move == null) {
             throw new InvalidMoveException("Invalid Move: Move cannot be null.");
         }
@@ -97,15 +138,10 @@ public class ChessGame {
         }
 
         // Perform the move
-        gameBoard.addPiece(move.getStartPosition(), null);
-        if (move.getPromotionPiece() != null) {
-            gameBoard.addPiece(move.getEndPosition(), new ChessPiece(movingPiece.getTeamColor(), move.getPromotionPiece()));
-        } else {
-            gameBoard.addPiece(move.getEndPosition(), movingPiece);
-        }
+        movePiece(move, movingPiece);
 
         // Ensure the move doesn't leave the king in check
-        if (isInCheck(teamTurn)) {
+        if (isInCheck(teamTurn, gameBoard)) {
             throw new InvalidMoveException("Invalid move: Cannot move into check.");
         }
 
@@ -113,6 +149,44 @@ public class ChessGame {
         teamTurn = (teamTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
     }
 
+    /**
+     * Makes a move that is already known to be valid, such as one read back
+     * from a game's own saved move log. Only the board, turn and position key
+     * are updated; no valid moves are generated and check is not tested.
+     * Running with -Dchess.verifyUnchecked=true validates the move anyway.
+     *
+     * @param move chess move to perform
+     * @throws IllegalStateException if there is no piece on the start square,
+     * or if validation is turned on and the move is invalid
+     */
+    public void applyUnchecked(ChessMove move) {
+        if (VERIFY_UNCHECKED) {
+            try {
+                makeMove(move);
+            } catch (InvalidMoveException e) {
+                throw new IllegalStateException("Unchecked move was invalid: " + e.getMessage(), e);
+            }
+            return;
+        }
+        ChessPiece movingPiece = gameBoard.getPiece(move.getStartPosition());
+        if (movingPiece == null) {
+            ChessPosition start = move.getStartPosition();
+            throw new IllegalStateException("Unchecked move has no piece at row " + start.getRow()
+                    + ", column " + start.getColumn());
+        }
+        movePiece(move, movingPiece);
+        teamTurn = (teamTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+    }
+
+    private void movePiece(ChessMove move, ChessPiece movingPiece) {
+        gameBoard.addPiece(move.getStartPosition(), null);
+        if (move.getPromotionPiece() != null) {
+            gameBoard.addPiece(move.getEndPosition(), new ChessPiece(movingPiece.getTeamColor(), move.getPromotionPiece()));
+        } else {
+            gameBoard.addPiece(move.getEndPosition(), movingPiece);
+        }
+    }
+
     /**
      * Determines if the given team is in check
      *
@@ -120,7 +194,12 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        return isInCheck(teamColor, gameBoard);
+        long start = System.nanoTime();
+        try {
+            return isInCheck(teamColor, gameBoard);
+        } finally {
+            CHECK_TIME.recordSince(start);
+        }
     }
 
     /**
@@ -178,7 +257,12 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        return (isInCheck(teamColor) && anyValidMoves(teamColor));
+        long start = System.nanoTime();
+        try {
+            return (isInCheck(teamColor, gameBoard) && anyValidMoves(teamColor));
+        } finally {
+            CHECKMATE_TIME.recordSince(start);
+        }
     }
 
     /**
@@ -189,7 +273,12 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        return (!isInCheck(teamColor) && anyValidMoves(teamColor));
+        long start = System.nanoTime();
+        try {
+            return (!isInCheck(teamColor, gameBoard) && anyValidMoves(teamColor));
+        } finally {
+            STALEMATE_TIME.recordSince(start);
+        }
     }
 
     /**
@@ -210,6 +299,15 @@ public class ChessGame {
         return true;
     }
 
+    /**
+     * Gets the Zobrist key of the current position, including whose turn it is
+     *
+     * @return the 64-bit position key
+     */
+    public long getPositionHash() {
+        return gameBoard.getHash() ^ ZobristHash.turnKey(teamTurn);
+    }
+
     /**
      * Sets this game's chessboard with a given board
      *
@@ -228,6 +326,10 @@ public class ChessGame {
         return gameBoard;
     }
 
+    private static Histogram rulesTimer(String method) {
+        return MetricsRegistry.global().timer(RULES_TIME, RULES_HELP, "method", method);
+    }
+
     /**
      * Clones the chessboard that is input, to prevent wrongful manipulation
      *
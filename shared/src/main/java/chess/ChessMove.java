@@ -45,6 +45,54 @@ public class ChessMove {
         return promotionPiece;
     }
 
+    /**
+     * Packs this move into 16 bits using the Polyglot layout: destination
+     * column and row in the low 6 bits, then the start column and row, then
+     * the promotion piece (1 knight, 2 bishop, 3 rook, 4 queen)
+     *
+     * @return the encoded move
+     */
+    public short encode() {
+        int encoded = (endPosition.getColumn() - 1)
+                | (endPosition.getRow() - 1) << 3
+                | (startPosition.getColumn() - 1) << 6
+                | (startPosition.getRow() - 1) << 9
+                | promotionCode(promotionPiece) << 12;
+        return (short) encoded;
+    }
+
+    /**
+     * Unpacks a move written by {@link #encode()}
+     *
+     * @param encoded the encoded move
+     * @return the decoded move
+     */
+    public static ChessMove decode(short encoded) {
+        ChessPosition end = new ChessPosition((encoded >> 3 & 7) + 1, (encoded & 7) + 1);
+        ChessPosition start = new ChessPosition((encoded >> 9 & 7) + 1, (encoded >> 6 & 7) + 1);
+        ChessPiece.PieceType promotion = switch (encoded >> 12 & 7) {
+            case 1 -> ChessPiece.PieceType.KNIGHT;
+            case 2 -> ChessPiece.PieceType.BISHOP;
+            case 3 -> ChessPiece.PieceType.ROOK;
+            case 4 -> ChessPiece.PieceType.QUEEN;
+            default -> null;
+        };
+        return new ChessMove(start, end, promotion);
+    }
+
+    private static int promotionCode(ChessPiece.PieceType type) {
+        if (type == null) {
+            return 0;
+        }
+        return switch (type) {
+            case KNIGHT -> 1;
+            case BISHOP -> 2;
+            case ROOK -> 3;
+            case QUEEN -> 4;
+            default -> 0;
+        };
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
@@ -0,0 +1,151 @@
+package chess;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One endgame table: the result of every placement of a fixed set of pieces,
+ * such as "KQK" (white king and queen against a black king).
+ * <p>
+ * Each piece gets a slot, white pieces first, and a position's index is the
+ * square of every slot in base 64 followed by the side to move. Entries are
+ * one byte each, scored for the side to move: 0 is a draw, d &gt; 0 wins with
+ * mate in d plies, and -(d + 1) loses to mate in d plies.
+ */
+class EndgameTable {
+    static final byte ILLEGAL = Byte.MIN_VALUE;
+    private static final String PIECE_ORDER = "KQRBNP";
+
+    private final String signature;
+    private final ChessPiece[] slots;
+    private ByteBuffer values;
+
+    EndgameTable(String signature) {
+        this.signature = signature;
+        this.slots = parseSlots(signature);
+    }
+
+    private static ChessPiece[] parseSlots(String signature) {
+        int blackKing = signature.indexOf('K', 1);
+        if (!signature.startsWith("K") || blackKing < 0) {
+            throw new IllegalArgumentException("Bad endgame signature: " + signature);
+        }
+        List<ChessPiece> pieces = new ArrayList<>();
+        for (int i = 0; i < signature.length(); i++) {
+            ChessGame.TeamColor color = (i < blackKing) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+            pieces.add(new ChessPiece(color, pieceType(signature.charAt(i))));
+        }
+        return pieces.toArray(new ChessPiece[0]);
+    }
+
+    String getSignature() {
+        return signature;
+    }
+
+    int pieceCount() {
+        return slots.length;
+    }
+
+    ChessPiece slot(int slot) {
+        return slots[slot];
+    }
+
+    int size() {
+        return 2 << (6 * slots.length);
+    }
+
+    void setValues(ByteBuffer values) {
+        if (values.capacity() != size()) {
+            throw new IllegalArgumentException("Endgame table " + signature + " has the wrong size");
+        }
+        this.values = values;
+    }
+
+    byte get(int index) {
+        return values.get(index);
+    }
+
+    static int index(int[] squares, ChessGame.TeamColor teamTurn) {
+        int index = 0;
+        for (int i = squares.length - 1; i >= 0; i--) {
+            index = index * 64 + squares[i];
+        }
+        return index * 2 + teamTurn.ordinal();
+    }
+
+    static ChessGame.TeamColor teamTurn(int index) {
+        return ChessGame.TeamColor.values()[index & 1];
+    }
+
+    static void squares(int index, int[] squares) {
+        index >>= 1;
+        for (int i = 0; i < squares.length; i++) {
+            squares[i] = index & 63;
+            index >>= 6;
+        }
+    }
+
+    static int square(ChessPosition position) {
+        return (position.getRow() - 1) * 8 + (position.getColumn() - 1);
+    }
+
+    static ChessPosition position(int square) {
+        return new ChessPosition(square / 8 + 1, square % 8 + 1);
+    }
+
+    static char pieceLetter(ChessPiece.PieceType type) {
+        return switch (type) {
+            case KING -> 'K';
+            case QUEEN -> 'Q';
+            case ROOK -> 'R';
+            case BISHOP -> 'B';
+            case KNIGHT -> 'N';
+            case PAWN -> 'P';
+        };
+    }
+
+    static ChessPiece.PieceType pieceType(char letter) {
+        return switch (letter) {
+            case 'K' -> ChessPiece.PieceType.KING;
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'R' -> ChessPiece.PieceType.ROOK;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            case 'N' -> ChessPiece.PieceType.KNIGHT;
+            case 'P' -> ChessPiece.PieceType.PAWN;
+            default -> throw new IllegalArgumentException("Bad piece letter: " + letter);
+        };
+    }
+
+    /**
+     * Sorts the letters for one side into table order, king first
+     */
+    static String sortSide(String side) {
+        StringBuilder sorted = new StringBuilder();
+        for (char piece : PIECE_ORDER.toCharArray()) {
+            for (char letter : side.toCharArray()) {
+                if (letter == piece) {
+                    sorted.append(letter);
+                }
+            }
+        }
+        return sorted.toString();
+    }
+
+    /**
+     * Rough material count used to decide which side a table is written for
+     */
+    static int material(String side) {
+        int total = 0;
+        for (char letter : side.toCharArray()) {
+            total += switch (letter) {
+                case 'Q' -> 9;
+                case 'R' -> 5;
+                case 'B', 'N' -> 3;
+                case 'P' -> 1;
+                default -> 0;
+            };
+        }
+        return total;
+    }
+}
@@ -0,0 +1,119 @@
+package chess;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Replays many stored games at once to check that every move in them is
+ * valid and to recompute how each game ended.
+ * <p>
+ * Games are spread over a ForkJoinPool. Each worker thread keeps one scratch
+ * game and board that it reloads for every job, so replaying does not
+ * allocate a new board per game.
+ */
+public class GameReplayer {
+    private final ForkJoinPool pool;
+    private final ThreadLocal<ChessGame> scratchGames = ThreadLocal.withInitial(() -> {
+        ChessGame game = new ChessGame();
+        game.setBoard(new ChessBoard());
+        return game;
+    });
+
+    /**
+     * A game to replay
+     *
+     * @param initialBoard the position the game started from, which is only read
+     * @param initialTurn  the team that moved first
+     * @param moves        the moves of the game in order
+     */
+    public record ReplayJob(ChessBoard initialBoard, ChessGame.TeamColor initialTurn, List<ChessMove> moves) {
+    }
+
+    /**
+     * How a replay went
+     *
+     * @param job          the job that was replayed
+     * @param movesApplied how many moves were valid, which is every move unless
+     *                     the replay failed
+     * @param error        why the first invalid or malformed move was rejected,
+     *                     or null
+     * @param teamTurn     whose turn it was after the last valid move
+     * @param positionHash the Zobrist key of the final position
+     * @param checkmate    true if the team to move is checkmated
+     * @param stalemate    true if the team to move is stalemated
+     */
+    public record ReplayResult(ReplayJob job, int movesApplied, String error, ChessGame.TeamColor teamTurn,
+                               long positionHash, boolean checkmate, boolean stalemate) {
+        /**
+         * @return true if every move in the job was valid
+         */
+        public boolean isValid() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Creates a replayer that runs on the common ForkJoinPool
+     */
+    public GameReplayer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool the pool to replay games on
+     */
+    public GameReplayer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Replays every job in parallel
+     *
+     * @param jobs the games to replay
+     * @return one result per job, in the same order as the jobs
+     */
+    public List<ReplayResult> replayAll(Collection<ReplayJob> jobs) {
+        return pool.submit(() -> jobs.parallelStream().map(this::replay).toList()).join();
+    }
+
+    /**
+     * Replays a single job on the calling thread
+     *
+     * @param job the game to replay
+     * @return the result of the replay
+     */
+    public ReplayResult replay(ReplayJob job) {
+        ChessGame game = scratchGames.get();
+        load(game.getBoard(), job.initialBoard());
+        game.setTeamTurn(job.initialTurn());
+
+        int applied = 0;
+        String error = null;
+        for (ChessMove move : job.moves()) {
+            try {
+                game.makeMove(move);
+                applied++;
+            } catch (InvalidMoveException e) {
+                error = "Move " + (applied + 1) + ": " + e.getMessage();
+                break;
+            } catch (RuntimeException e) {
+                // A malformed move, such as one off the board, fails this job only and not the whole batch.
+                error = "Move " + (applied + 1) + ": " + e;
+                break;
+            }
+        }
+        ChessGame.TeamColor teamTurn = game.getTeamTurn();
+        return new ReplayResult(job, applied, error, teamTurn, game.getPositionHash(),
+                game.isInCheckmate(teamTurn), game.isInStalemate(teamTurn));
+    }
+
+    private static void load(ChessBoard scratch, ChessBoard initial) {
+        for (int i = 1; i <= 8; i++) {
+            for (int j = 1; j <= 8; j++) {
+                ChessPosition position = new ChessPosition(i, j);
+                scratch.addPiece(position, initial.getPiece(position));
+            }
+        }
+    }
+}
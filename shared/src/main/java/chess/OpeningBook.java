@@ -0,0 +1,148 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A read-only opening book backed by a memory-mapped file.
+ * <p>
+ * The file uses the Polyglot entry layout: 16-byte big-endian entries of
+ * position key (8 bytes), encoded move (2), weight (2) and learn data (4),
+ * sorted by key. Keys come from {@link ZobristHash}, not the Polyglot key
+ * table, so books have to be built with {@link OpeningBookBuilder}.
+ * Lookups binary search the mapped file directly, so nothing but the
+ * returned moves is ever loaded onto the heap.
+ */
+public class OpeningBook {
+    public static final int ENTRY_SIZE = 16;
+
+    private final ByteBuffer entries;
+    private final int entryCount;
+
+    /**
+     * A move stored in the book along with how often it should be played
+     *
+     * @param move   the book move
+     * @param weight relative weight of the move, higher is better
+     */
+    public record Entry(ChessMove move, int weight) {
+    }
+
+    private OpeningBook(ByteBuffer entries) {
+        this.entries = entries;
+        this.entryCount = entries.capacity() / ENTRY_SIZE;
+    }
+
+    /**
+     * Maps a book file into memory. The mapping stays valid after the file
+     * channel is closed.
+     *
+     * @param path the book file to open
+     * @return the opened book
+     * @throws IOException if the file cannot be read or is not a book file
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % ENTRY_SIZE != 0) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Opening book too large to map: " + path);
+            }
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * @return how many entries are in the book
+     */
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * Gets the book moves for the current position of a game
+     *
+     * @param game the game to look up
+     * @return the book moves in book order, or an empty list if the position
+     * is not in the book
+     */
+    public List<Entry> getMoves(ChessGame game) {
+        return getMoves(game.getPositionHash());
+    }
+
+    /**
+     * Gets the book moves stored under a position key
+     *
+     * @param key the position key, see {@link ChessGame#getPositionHash()}
+     * @return the book moves in book order (highest weight first for books
+     * written by OpeningBookBuilder), or an empty list if there are none
+     */
+    public List<Entry> getMoves(long key) {
+        List<Entry> moves = new ArrayList<>();
+        for (int i = lowerBound(key); i < entryCount && keyAt(i) == key; i++) {
+            int offset = i * ENTRY_SIZE;
+            ChessMove move = ChessMove.decode(entries.getShort(offset + 8));
+            moves.add(new Entry(move, Short.toUnsignedInt(entries.getShort(offset + 10))));
+        }
+        return moves;
+    }
+
+    /**
+     * Picks a book move at random, weighted by how strong the book thinks
+     * each move is. Moves that are not valid in the game are skipped.
+     *
+     * @param game   the game to pick a move for
+     * @param random source of randomness
+     * @return the chosen move, or null if the position is out of book
+     */
+    public ChessMove pickMove(ChessGame game, Random random) {
+        Collection<ChessMove> validMoves = game.allValidMoves(game.getTeamTurn());
+        List<Entry> candidates = new ArrayList<>();
+        int totalWeight = 0;
+        for (Entry entry : getMoves(game)) {
+            if (entry.weight() > 0 && validMoves.contains(entry.move())) {
+                candidates.add(entry);
+                totalWeight += entry.weight();
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        int choice = random.nextInt(totalWeight);
+        for (Entry entry : candidates) {
+            choice -= entry.weight();
+            if (choice < 0) {
+                return entry.move();
+            }
+        }
+        return candidates.get(candidates.size() - 1).move();
+    }
+
+    // First entry whose key is not below the given key, comparing unsigned like Polyglot.
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return entries.getLong(index * ENTRY_SIZE);
+    }
+}
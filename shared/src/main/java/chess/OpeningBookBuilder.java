@@ -0,0 +1,288 @@
+package chess;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds an {@link OpeningBook} file from games in PGN format.
+ * <p>
+ * Each game is replayed for its first few moves, and every move played gets
+ * credit for the side that made it: two points for a win and one for a draw.
+ * Games stop counting at the first move this engine cannot play (castling,
+ * en passant) or cannot read.
+ * <p>
+ * Run with: java chess.OpeningBookBuilder [-plies N] output.bin games.pgn...
+ */
+public class OpeningBookBuilder {
+    public static final int DEFAULT_MAX_PLIES = 24;
+
+    private final int maxPlies;
+    private final Map<Long, Map<Short, Integer>> scores = new HashMap<>();
+    private int gamesRead;
+
+    public OpeningBookBuilder(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int maxPlies = DEFAULT_MAX_PLIES;
+        int first = 0;
+        if (args.length > 1 && args[0].equals("-plies")) {
+            maxPlies = Integer.parseInt(args[1]);
+            first = 2;
+        }
+        if (args.length - first < 2) {
+            System.err.println("Usage: OpeningBookBuilder [-plies N] output.bin games.pgn...");
+            return;
+        }
+        OpeningBookBuilder builder = new OpeningBookBuilder(maxPlies);
+        for (int i = first + 1; i < args.length; i++) {
+            try (BufferedReader reader = Files.newBufferedReader(Path.of(args[i]))) {
+                builder.addPgn(reader);
+            }
+        }
+        int entries = builder.write(Path.of(args[first]));
+        System.out.printf("Wrote %d entries from %d games%n", entries, builder.gamesRead);
+    }
+
+    /**
+     * Adds every game in a PGN document to the book
+     *
+     * @param pgn the text of one or more PGN games
+     */
+    public void addPgn(String pgn) {
+        try {
+            addPgn(new BufferedReader(new StringReader(pgn)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Adds every game read from a PGN stream to the book, one line at a time,
+     * so only the game being read is held in memory
+     *
+     * @param reader the PGN source
+     * @throws IOException if the source cannot be read
+     */
+    public void addPgn(BufferedReader reader) throws IOException {
+        StringBuilder movetext = new StringBuilder();
+        String result = null;
+        boolean inBrace = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.startsWith("[")) {
+                if (!movetext.toString().isBlank()) {
+                    addGame(movetext.toString(), result);
+                    result = null;
+                }
+                movetext.setLength(0);
+                inBrace = false;
+                if (line.startsWith("[Result ")) {
+                    result = line.substring(line.indexOf('"') + 1, line.lastIndexOf('"'));
+                }
+            } else {
+                // A ; comment runs to the end of its own line only, so drop it before lines are joined.
+                // A ; inside a {...} comment, which may have opened on an earlier line, is just text.
+                int end = line.length();
+                for (int i = 0; i < line.length(); i++) {
+                    char c = line.charAt(i);
+                    if (c == '{') {
+                        inBrace = true;
+                    } else if (c == '}') {
+                        inBrace = false;
+                    } else if (c == ';' && !inBrace) {
+                        end = i;
+                        break;
+                    }
+                }
+                movetext.append(line, 0, end).append(' ');
+            }
+        }
+        if (!movetext.toString().isBlank()) {
+            addGame(movetext.toString(), result);
+        }
+    }
+
+    private void addGame(String movetext, String result) {
+        if (result == null || movetext.isBlank()) {
+            return;
+        }
+        gamesRead++;
+        // Drop comments, variations and numeric annotations before splitting into moves.
+        String cleaned = movetext.replaceAll("\\{[^}]*}", " ");
+        while (cleaned.contains("(")) {
+            String previous = cleaned;
+            cleaned = cleaned.replaceAll("\\([^()]*\\)", " ");
+            if (cleaned.equals(previous)) {
+                break;
+            }
+        }
+        cleaned = cleaned.replaceAll("\\$\\d+", " ").replaceAll("\\d+\\.+", " ");
+
+        ChessGame game = new ChessGame();
+        int plies = 0;
+        for (String token : cleaned.trim().split("\\s+")) {
+            if (plies >= maxPlies || token.isEmpty() || isResult(token)) {
+                break;
+            }
+            ChessMove move = parseSan(game, token);
+            if (move == null) {
+                break;
+            }
+            int points = points(result, game.getTeamTurn());
+            scores.computeIfAbsent(game.getPositionHash(), key -> new HashMap<>())
+                    .merge(move.encode(), points, Integer::sum);
+            try {
+                game.makeMove(move);
+            } catch (InvalidMoveException e) {
+                break;
+            }
+            plies++;
+        }
+    }
+
+    private static boolean isResult(String token) {
+        return token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*");
+    }
+
+    private static int points(String result, ChessGame.TeamColor mover) {
+        return switch (result) {
+            case "1-0" -> mover == ChessGame.TeamColor.WHITE ? 2 : 0;
+            case "0-1" -> mover == ChessGame.TeamColor.BLACK ? 2 : 0;
+            case "1/2-1/2" -> 1;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Finds the valid move described by a move in standard algebraic notation
+     *
+     * @param game the game the move is played in
+     * @param san  the move, such as "Nbd7", "exd5" or "e8=Q+"
+     * @return the move, or null if it is not a single valid move in this game
+     */
+    static ChessMove parseSan(ChessGame game, String san) {
+        String text = san.replaceAll("[+#!?]", "");
+        if (text.startsWith("O-O") || text.startsWith("0-0")) {
+            return null;
+        }
+        ChessPiece.PieceType promotion = null;
+        int equals = text.indexOf('=');
+        if (equals >= 0 && equals + 1 < text.length()) {
+            promotion = pieceType(text.charAt(equals + 1));
+            text = text.substring(0, equals);
+        }
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        if (!text.isEmpty() && Character.isUpperCase(text.charAt(0))) {
+            type = pieceType(text.charAt(0));
+            text = text.substring(1);
+        }
+        if (type == null || text.length() < 2) {
+            return null;
+        }
+        ChessPosition end = square(text.substring(text.length() - 2));
+        if (end == null) {
+            return null;
+        }
+        String hint = text.substring(0, text.length() - 2).replace("x", "");
+
+        List<ChessMove> matches = new ArrayList<>();
+        for (ChessMove move : game.allValidMoves(game.getTeamTurn())) {
+            ChessPosition start = move.getStartPosition();
+            if (move.getEndPosition().equals(end)
+                    && move.getPromotionPiece() == promotion
+                    && game.getBoard().getPiece(start).getPieceType() == type
+                    && matchesHint(start, hint)) {
+                matches.add(move);
+            }
+        }
+        return (matches.size() == 1) ? matches.get(0) : null;
+    }
+
+    private static boolean matchesHint(ChessPosition start, String hint) {
+        for (char c : hint.toCharArray()) {
+            if (c >= 'a' && c <= 'h' && start.getColumn() != c - 'a' + 1) {
+                return false;
+            }
+            if (c >= '1' && c <= '8' && start.getRow() != c - '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ChessPosition square(String text) {
+        char file = text.charAt(0);
+        char rank = text.charAt(1);
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            return null;
+        }
+        return new ChessPosition(rank - '0', file - 'a' + 1);
+    }
+
+    private static ChessPiece.PieceType pieceType(char c) {
+        return switch (c) {
+            case 'K' -> ChessPiece.PieceType.KING;
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'R' -> ChessPiece.PieceType.ROOK;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            case 'N' -> ChessPiece.PieceType.KNIGHT;
+            default -> null;
+        };
+    }
+
+    /**
+     * Writes the book sorted by key, highest weight first within a key.
+     * Moves that never scored a point are left out.
+     *
+     * @param path the file to write
+     * @return how many entries were written
+     * @throws IOException if the file cannot be written
+     */
+    public int write(Path path) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        int maxScore = 1;
+        for (Map<Short, Integer> moves : scores.values()) {
+            for (int score : moves.values()) {
+                maxScore = Math.max(maxScore, score);
+            }
+        }
+        for (Map.Entry<Long, Map<Short, Integer>> position : scores.entrySet()) {
+            for (Map.Entry<Short, Integer> move : position.getValue().entrySet()) {
+                // Scale down so the busiest move still fits in an unsigned short.
+                long weight = (maxScore <= 0xFFFF) ? move.getValue() : (long) move.getValue() * 0xFFFF / maxScore;
+                if (weight > 0) {
+                    entries.add(new long[]{position.getKey(), move.getKey(), weight});
+                }
+            }
+        }
+        entries.sort((a, b) -> {
+            int byKey = Long.compareUnsigned(a[0], b[0]);
+            return (byKey != 0) ? byKey : Long.compare(b[2], a[2]);
+        });
+
+        try (OutputStream file = Files.newOutputStream(path);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            for (long[] entry : entries) {
+                out.writeLong(entry[0]);
+                out.writeShort((int) entry[1]);
+                out.writeShort((int) entry[2]);
+                out.writeInt(0);
+            }
+        }
+        return entries.size();
+    }
+}
@@ -0,0 +1,576 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exact results for endgames with at most four pieces, including kings.
+ * <p>
+ * Tables are generated from the rules in ChessGame by working backwards from
+ * checkmate one ply at a time, then written to a directory as one
+ * "SIGNATURE.tb" file each (for example "KQK.tb" or "KBNK.tb"). Probing
+ * memory-maps the files, so a lookup is a single byte read. Tables are only
+ * stored with the stronger side as white; positions with colors the other way
+ * round are mirrored before the lookup.
+ * <p>
+ * Run with: java chess.Tablebase directory SIGNATURE...
+ */
+public class Tablebase {
+    public static final int MAX_PIECES = 4;
+    private static final String TABLE_SUFFIX = ".tb";
+
+    private final Path directory;
+    private final Map<String, EndgameTable> tables = new ConcurrentHashMap<>();
+
+    /**
+     * The outcome of a position for the side to move
+     */
+    public enum Outcome {
+        WIN, LOSS, DRAW
+    }
+
+    /**
+     * The result of probing a position
+     *
+     * @param outcome the outcome for the side to move with best play
+     * @param plies   how many plies until checkmate, or 0 for a draw
+     */
+    public record Result(Outcome outcome, int plies) {
+    }
+
+    // Where a position lives: a table signature (null for a dead draw) and index.
+    private record Location(String signature, int index) {
+    }
+
+    public Tablebase(Path directory) {
+        this.directory = directory;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: Tablebase directory SIGNATURE...");
+            return;
+        }
+        Tablebase tablebase = new Tablebase(Path.of(args[0]));
+        Files.createDirectories(tablebase.directory);
+        for (int i = 1; i < args.length; i++) {
+            long start = System.nanoTime();
+            tablebase.generate(args[i]);
+            System.out.printf("%s done in %d ms%n", args[i], (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Looks up the exact result of a game's current position
+     *
+     * @param game the game to probe
+     * @return the result for the team whose turn it is, or null if the
+     * position has too many pieces or its table has not been generated
+     */
+    public Result probe(ChessGame game) {
+        return probe(game.getBoard(), game.getTeamTurn());
+    }
+
+    /**
+     * Looks up the exact result of a position
+     *
+     * @param board    the position to probe
+     * @param teamTurn the team to move
+     * @return the result for the team to move, or null if the position has
+     * too many pieces or its table has not been generated
+     */
+    public Result probe(ChessBoard board, ChessGame.TeamColor teamTurn) {
+        Location location = locate(board, teamTurn);
+        if (location == null) {
+            return null;
+        }
+        if (location.signature() == null) {
+            return new Result(Outcome.DRAW, 0);
+        }
+        EndgameTable table = load(location.signature());
+        if (table == null) {
+            return null;
+        }
+        byte value = table.get(location.index());
+        if (value == EndgameTable.ILLEGAL) {
+            return null;
+        }
+        if (value > 0) {
+            return new Result(Outcome.WIN, value);
+        }
+        if (value < 0) {
+            return new Result(Outcome.LOSS, -value - 1);
+        }
+        return new Result(Outcome.DRAW, 0);
+    }
+
+    /**
+     * Generates a table and every smaller table it depends on, skipping any
+     * that are already in the directory
+     *
+     * @param signature pieces in the table, white's then black's, such as "KRK"
+     * @throws IOException if a table cannot be written
+     */
+    public void generate(String signature) throws IOException {
+        String canonical = canonical(signature);
+        if (canonical == null || Files.exists(file(canonical))) {
+            return;
+        }
+        for (String dependency : dependencies(canonical)) {
+            generate(dependency);
+        }
+        byte[] values = build(new EndgameTable(canonical));
+        Path temporary = directory.resolve(canonical + TABLE_SUFFIX + ".tmp");
+        Files.write(temporary, values);
+        Files.move(temporary, file(canonical));
+    }
+
+    private Path file(String signature) {
+        return directory.resolve(signature + TABLE_SUFFIX);
+    }
+
+    private EndgameTable load(String signature) {
+        EndgameTable table = tables.get(signature);
+        if (table != null || !Files.exists(file(signature))) {
+            return table;
+        }
+        try (FileChannel channel = FileChannel.open(file(signature), StandardOpenOption.READ)) {
+            table = new EndgameTable(signature);
+            table.setValues(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException | IllegalArgumentException e) {
+            // Unreadable, truncated or wrong-size files count as a missing table.
+            return null;
+        }
+        EndgameTable existing = tables.putIfAbsent(signature, table);
+        return (existing != null) ? existing : table;
+    }
+
+    /**
+     * Puts a signature in table order with the stronger side as white
+     *
+     * @return the table signature, or null if the material is a dead draw
+     */
+    private static String canonical(String signature) {
+        int blackKing = signature.indexOf('K', 1);
+        if (!signature.startsWith("K") || blackKing < 0 || signature.length() > MAX_PIECES) {
+            throw new IllegalArgumentException("Bad endgame signature: " + signature);
+        }
+        String white = EndgameTable.sortSide(signature.substring(0, blackKing));
+        String black = EndgameTable.sortSide(signature.substring(blackKing));
+        if (isDeadDraw(white + black)) {
+            return null;
+        }
+        return mirrored(white, black) ? black + white : white + black;
+    }
+
+    private static boolean mirrored(String white, String black) {
+        int difference = EndgameTable.material(white) - EndgameTable.material(black);
+        return difference < 0 || (difference == 0 && white.compareTo(black) < 0);
+    }
+
+    // Bare kings, or kings and a single minor piece, can never be won.
+    private static boolean isDeadDraw(String signature) {
+        String pieces = signature.replace("K", "");
+        return pieces.isEmpty() || pieces.equals("B") || pieces.equals("N");
+    }
+
+    private static Collection<String> dependencies(String signature) {
+        Set<String> dependencies = new LinkedHashSet<>();
+        for (int i = 0; i < signature.length(); i++) {
+            char letter = signature.charAt(i);
+            if (letter == 'K') {
+                continue;
+            }
+            String before = signature.substring(0, i);
+            String after = signature.substring(i + 1);
+            dependencies.add(canonical(before + after));
+            if (letter == 'P') {
+                for (char promotion : "QRBN".toCharArray()) {
+                    dependencies.add(canonical(before + promotion + after));
+                }
+            }
+        }
+        dependencies.remove(null);
+        return dependencies;
+    }
+
+    /**
+     * Finds the table and index for a position, mirroring colors when black
+     * is the stronger side
+     *
+     * @return the location, or null if there are too many pieces
+     */
+    private static Location locate(ChessBoard board, ChessGame.TeamColor teamTurn) {
+        List<ChessPosition> positions = new ArrayList<>();
+        StringBuilder white = new StringBuilder();
+        StringBuilder black = new StringBuilder();
+        for (int i = 1; i <= 8; i++) {
+            for (int j = 1; j <= 8; j++) {
+                ChessPosition position = new ChessPosition(i, j);
+                ChessPiece piece = board.getPiece(position);
+                if (piece == null) {
+                    continue;
+                }
+                if (positions.size() == MAX_PIECES) {
+                    return null;
+                }
+                positions.add(position);
+                char letter = EndgameTable.pieceLetter(piece.getPieceType());
+                (piece.getTeamColor() == ChessGame.TeamColor.WHITE ? white : black).append(letter);
+            }
+        }
+        String whiteSide = EndgameTable.sortSide(white.toString());
+        String blackSide = EndgameTable.sortSide(black.toString());
+        if (!whiteSide.startsWith("K") || !blackSide.startsWith("K")) {
+            return null;
+        }
+        if (isDeadDraw(whiteSide + blackSide)) {
+            return new Location(null, 0);
+        }
+        boolean mirror = mirrored(whiteSide, blackSide);
+        EndgameTable table = new EndgameTable(mirror ? blackSide + whiteSide : whiteSide + blackSide);
+
+        int[] squares = new int[table.pieceCount()];
+        boolean[] used = new boolean[positions.size()];
+        for (int slot = 0; slot < squares.length; slot++) {
+            for (int p = 0; p < positions.size(); p++) {
+                ChessPiece piece = board.getPiece(positions.get(p));
+                ChessGame.TeamColor color = mirror ? opponent(piece.getTeamColor()) : piece.getTeamColor();
+                if (!used[p] && color == table.slot(slot).getTeamColor()
+                        && piece.getPieceType() == table.slot(slot).getPieceType()) {
+                    int square = EndgameTable.square(positions.get(p));
+                    squares[slot] = mirror ? square ^ 56 : square;
+                    used[p] = true;
+                    break;
+                }
+            }
+        }
+        return new Location(table.getSignature(), EndgameTable.index(squares, mirror ? opponent(teamTurn) : teamTurn));
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor team) {
+        return (team == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    /**
+     * Solves every position in a table by retrograde analysis. Pass 0 runs
+     * every position forward once, marking checkmates and counting the moves
+     * that stay in this table. Pass p then walks backwards from the positions
+     * resolved in pass p - 1: anything that can move into a loss is a win in p
+     * plies, and anything whose last undecided move turns out to be a win for
+     * the opponent is a loss in p plies. Moves that capture or promote land in
+     * smaller tables whose results are already known, so they are folded in by
+     * scheduling a position for the pass where they would decide it.
+     */
+    private byte[] build(EndgameTable table) {
+        int size = table.size();
+        byte[] values = new byte[size];
+        byte[] undecided = new byte[size];
+        byte[] smallerLoss = new byte[size];
+        BitSet resolved = new BitSet(size);
+        IntList[] wins = new IntList[Byte.MAX_VALUE + 1];
+        IntList[] losses = new IntList[Byte.MAX_VALUE + 1];
+        for (int pass = 0; pass <= Byte.MAX_VALUE; pass++) {
+            wins[pass] = new IntList();
+            losses[pass] = new IntList();
+        }
+
+        ChessBoard board = new ChessBoard();
+        int[] squares = new int[table.pieceCount()];
+        IntList frontier = new IntList();
+
+        for (int index = 0; index < size; index++) {
+            EndgameTable.squares(index, squares);
+            ChessGame.TeamColor teamTurn = EndgameTable.teamTurn(index);
+            if (!place(table, board, squares) || isInCheck(table, board, squares, opponent(teamTurn))) {
+                values[index] = EndgameTable.ILLEGAL;
+                resolved.set(index);
+                clear(board, squares);
+                continue;
+            }
+            List<ChessMove> moves = legalMoves(table, board, squares, teamTurn);
+            if (moves.isEmpty()) {
+                values[index] = isInCheck(table, board, squares, teamTurn) ? (byte) -1 : 0;
+                resolved.set(index);
+                if (values[index] < 0) {
+                    frontier.add(index);
+                }
+                clear(board, squares);
+                continue;
+            }
+            int fastestWin = 0;
+            int lossPass = 0;
+            int sameTable = 0;
+            for (ChessMove move : moves) {
+                if (board.getPiece(move.getEndPosition()) == null && move.getPromotionPiece() == null) {
+                    sameTable++;
+                    continue;
+                }
+                int child = smallerTableValue(board, move, opponent(teamTurn));
+                if (child < 0) {
+                    fastestWin = (fastestWin == 0) ? -child : Math.min(fastestWin, -child);
+                }
+                lossPass = (child > 0 && lossPass >= 0) ? Math.max(lossPass, child + 1) : -1;
+            }
+            clear(board, squares);
+
+            undecided[index] = (byte) sameTable;
+            smallerLoss[index] = (byte) lossPass;
+            if (fastestWin > 0) {
+                wins[fastestWin].add(index);
+            }
+            if (sameTable == 0 && lossPass > 0) {
+                losses[lossPass].add(index);
+            }
+        }
+
+        int[] parentSquares = new int[squares.length];
+        for (int pass = 1; pass < Byte.MAX_VALUE; pass++) {
+            IntList next = new IntList();
+            for (int i = 0; i < wins[pass].size(); i++) {
+                resolve(values, resolved, next, wins[pass].get(i), (byte) pass);
+            }
+            for (int i = 0; i < losses[pass].size(); i++) {
+                resolve(values, resolved, next, losses[pass].get(i), (byte) -(pass + 1));
+            }
+            for (int i = 0; i < frontier.size(); i++) {
+                int child = frontier.get(i);
+                boolean childLost = values[child] < 0;
+                EndgameTable.squares(child, squares);
+                place(table, board, squares);
+                ChessGame.TeamColor mover = opponent(EndgameTable.teamTurn(child));
+                for (int slot = 0; slot < squares.length; slot++) {
+                    if (table.slot(slot).getTeamColor() != mover) {
+                        continue;
+                    }
+                    IntList origins = origins(board, table.slot(slot), squares[slot]);
+                    for (int o = 0; o < origins.size(); o++) {
+                        System.arraycopy(squares, 0, parentSquares, 0, squares.length);
+                        parentSquares[slot] = origins.get(o);
+                        int parent = EndgameTable.index(parentSquares, mover);
+                        if (resolved.get(parent)) {
+                            continue;
+                        }
+                        if (childLost) {
+                            resolve(values, resolved, next, parent, (byte) pass);
+                        } else if (--undecided[parent] == 0 && smallerLoss[parent] >= 0) {
+                            int lossPass = Math.max(pass, smallerLoss[parent]);
+                            if (lossPass == pass) {
+                                resolve(values, resolved, next, parent, (byte) -(pass + 1));
+                            } else {
+                                losses[lossPass].add(parent);
+                            }
+                        }
+                    }
+                }
+                clear(board, squares);
+            }
+            frontier = next;
+        }
+        return values;
+    }
+
+    /**
+     * Generates the legal moves of one side by making each move on the
+     * generator's own board and taking it back, which is much cheaper than
+     * asking the game for valid moves on every one of millions of positions
+     */
+    private static List<ChessMove> legalMoves(EndgameTable table, ChessBoard board, int[] squares,
+                                              ChessGame.TeamColor teamTurn) {
+        List<ChessMove> moves = new ArrayList<>();
+        for (int slot = 0; slot < squares.length; slot++) {
+            if (table.slot(slot).getTeamColor() != teamTurn) {
+                continue;
+            }
+            int from = squares[slot];
+            ChessPosition start = EndgameTable.position(from);
+            ChessPiece moving = board.getPiece(start);
+            for (ChessMove move : moving.pieceMoves(board, start)) {
+                ChessPosition end = move.getEndPosition();
+                ChessPiece captured = board.getPiece(end);
+                board.addPiece(start, null);
+                board.addPiece(end, moving);
+                squares[slot] = EndgameTable.square(end);
+                if (!isInCheck(table, board, squares, teamTurn)) {
+                    moves.add(move);
+                }
+                squares[slot] = from;
+                board.addPiece(end, captured);
+                board.addPiece(start, moving);
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Tests for check using the known piece squares instead of scanning the
+     * whole board, and by testing each attacker's line to the king instead
+     * of listing all of its moves. A slot whose square now holds someone
+     * else's piece was just captured and is skipped.
+     */
+    private static boolean isInCheck(EndgameTable table, ChessBoard board, int[] squares,
+                                     ChessGame.TeamColor team) {
+        ChessPosition king = null;
+        for (int slot = 0; slot < squares.length; slot++) {
+            ChessPiece piece = table.slot(slot);
+            if (piece.getTeamColor() == team && piece.getPieceType() == ChessPiece.PieceType.KING) {
+                king = EndgameTable.position(squares[slot]);
+            }
+        }
+        for (int slot = 0; slot < squares.length; slot++) {
+            if (table.slot(slot).getTeamColor() == team) {
+                continue;
+            }
+            ChessPosition position = EndgameTable.position(squares[slot]);
+            ChessPiece piece = board.getPiece(position);
+            if (piece == null || piece.getTeamColor() == team) {
+                continue;
+            }
+            if (attacks(board, piece, position, king)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean attacks(ChessBoard board, ChessPiece piece, ChessPosition from, ChessPosition target) {
+        int rows = target.getRow() - from.getRow();
+        int columns = target.getColumn() - from.getColumn();
+        int distance = Math.max(Math.abs(rows), Math.abs(columns));
+        return switch (piece.getPieceType()) {
+            case KING -> distance == 1;
+            case KNIGHT -> Math.abs(rows * columns) == 2;
+            case PAWN -> Math.abs(columns) == 1
+                    && rows == ((piece.getTeamColor() == ChessGame.TeamColor.WHITE) ? 1 : -1);
+            case ROOK -> (rows == 0 || columns == 0) && clearPath(board, from, rows, columns, distance);
+            case BISHOP -> Math.abs(rows) == Math.abs(columns) && clearPath(board, from, rows, columns, distance);
+            case QUEEN -> (rows == 0 || columns == 0 || Math.abs(rows) == Math.abs(columns))
+                    && clearPath(board, from, rows, columns, distance);
+        };
+    }
+
+    // Whether every square strictly between a slider and its target is empty.
+    private static boolean clearPath(ChessBoard board, ChessPosition from, int rows, int columns, int distance) {
+        int rowStep = Integer.signum(rows);
+        int columnStep = Integer.signum(columns);
+        for (int step = 1; step < distance; step++) {
+            ChessPosition between = new ChessPosition(from.getRow() + step * rowStep,
+                    from.getColumn() + step * columnStep);
+            if (board.getPiece(between) != null) {
+                return false;
+            }
+        }
+        return distance > 0;
+    }
+
+    private static void resolve(byte[] values, BitSet resolved, IntList next, int index, byte value) {
+        if (!resolved.get(index)) {
+            values[index] = value;
+            resolved.set(index);
+            next.add(index);
+        }
+    }
+
+    /**
+     * Finds the squares a piece could have come from without capturing,
+     * which for everything but pawns are the squares it could move to now
+     */
+    private static IntList origins(ChessBoard board, ChessPiece piece, int square) {
+        IntList origins = new IntList();
+        ChessPosition position = EndgameTable.position(square);
+        if (piece.getPieceType() != ChessPiece.PieceType.PAWN) {
+            for (ChessMove move : piece.pieceMoves(board, position)) {
+                if (board.getPiece(move.getEndPosition()) == null) {
+                    origins.add(EndgameTable.square(move.getEndPosition()));
+                }
+            }
+            return origins;
+        }
+        boolean white = piece.getTeamColor() == ChessGame.TeamColor.WHITE;
+        int back = white ? -1 : 1;
+        int row = position.getRow();
+        ChessPosition oneBack = new ChessPosition(row + back, position.getColumn());
+        boolean onBoard = row + back >= 2 && row + back <= 7;
+        if (onBoard && board.getPiece(oneBack) == null) {
+            origins.add(EndgameTable.square(oneBack));
+            ChessPosition twoBack = new ChessPosition(row + 2 * back, position.getColumn());
+            if (row == (white ? 4 : 5) && board.getPiece(twoBack) == null) {
+                origins.add(EndgameTable.square(twoBack));
+            }
+        }
+        return origins;
+    }
+
+    // Result of a capture or promotion, looked up in the smaller table it lands in.
+    private int smallerTableValue(ChessBoard board, ChessMove move, ChessGame.TeamColor childTurn) {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        ChessPiece moving = board.getPiece(start);
+        ChessPiece captured = board.getPiece(end);
+        ChessPiece landing = (move.getPromotionPiece() == null) ? moving
+                : new ChessPiece(moving.getTeamColor(), move.getPromotionPiece());
+        board.addPiece(start, null);
+        board.addPiece(end, landing);
+        Location location = locate(board, childTurn);
+        board.addPiece(end, captured);
+        board.addPiece(start, moving);
+        if (location.signature() == null) {
+            return 0;
+        }
+        EndgameTable smaller = load(location.signature());
+        if (smaller == null) {
+            throw new IllegalStateException("Endgame table " + location.signature() + " is missing or damaged");
+        }
+        return smaller.get(location.index());
+    }
+
+    private static boolean place(EndgameTable table, ChessBoard board, int[] squares) {
+        for (int slot = 0; slot < squares.length; slot++) {
+            ChessPosition position = EndgameTable.position(squares[slot]);
+            ChessPiece piece = table.slot(slot);
+            boolean backRank = position.getRow() == 1 || position.getRow() == 8;
+            if (board.getPiece(position) != null || (piece.getPieceType() == ChessPiece.PieceType.PAWN && backRank)) {
+                return false;
+            }
+            board.addPiece(position, piece);
+        }
+        return true;
+    }
+
+    private static void clear(ChessBoard board, int[] squares) {
+        for (int square : squares) {
+            board.addPiece(EndgameTable.position(square), null);
+        }
+    }
+
+    private static class IntList {
+        private int[] items = new int[16];
+        private int size;
+
+        void add(int item) {
+            if (size == items.length) {
+                items = java.util.Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = item;
+        }
+
+        int get(int index) {
+            return items[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys used to give every position a 64-bit hash. A board's key is
+ * the xor of one key per piece on a square, so it can be updated in place
+ * whenever a single square changes.
+ */
+public final class ZobristHash {
+    // Fixed seed so keys (and any files keyed by them) stay stable between runs.
+    private static final long SEED = 0x240C4E55L;
+    private static final long[][] PIECE_KEYS = new long[12][64];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long[] keys : PIECE_KEYS) {
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private ZobristHash() {
+    }
+
+    /**
+     * @param piece    the piece to get a key for
+     * @param position the square the piece is on
+     * @return the key to xor in or out when the piece enters or leaves the square
+     */
+    public static long pieceKey(ChessPiece piece, ChessPosition position) {
+        int pieceIndex = piece.getPieceType().ordinal() * 2 + piece.getTeamColor().ordinal();
+        int square = (position.getRow() - 1) * 8 + (position.getColumn() - 1);
+        return PIECE_KEYS[pieceIndex][square];
+    }
+
+    /**
+     * @param teamTurn the team to move
+     * @return the key to xor into a board key for the side to move
+     */
+    public static long turnKey(ChessGame.TeamColor teamTurn) {
+        return (teamTurn == ChessGame.TeamColor.BLACK) ? BLACK_TO_MOVE : 0L;
+    }
+}
@@ -0,0 +1,157 @@
+package metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Named counters, gauges and timers, written out in the Prometheus text
+ * exposition format.
+ * <p>
+ * Each metric is a family name plus label pairs given as alternating keys and
+ * values, such as {@code timer("http_request_seconds", help, "path", "/game")}.
+ * Asking again for the same name and labels returns the same counter or timer,
+ * so callers can look them up once and keep them in a field. Timers record
+ * nanoseconds and are written as summaries in seconds.
+ */
+public final class MetricsRegistry {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+    private enum Type {
+        COUNTER, GAUGE, SUMMARY
+    }
+
+    private record Family(String name, String help, Type type, Map<String, Object> series) {
+    }
+
+    /**
+     * @return the registry the rules engine and server report to
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, Type.COUNTER).series()
+                .computeIfAbsent(labelText(labels), key -> new Counter());
+    }
+
+    /**
+     * Reports a count kept elsewhere, read each time the metrics are written.
+     * Registering the same name and labels again replaces the source.
+     */
+    public void counter(String name, String help, DoubleSupplier source, String... labels) {
+        family(name, help, Type.COUNTER).series().put(labelText(labels), source);
+    }
+
+    /**
+     * Reports a value that can go up and down, read each time the metrics are
+     * written. Registering the same name and labels again replaces the source.
+     */
+    public void gauge(String name, String help, DoubleSupplier source, String... labels) {
+        family(name, help, Type.GAUGE).series().put(labelText(labels), source);
+    }
+
+    /**
+     * @return a histogram to record durations into, in nanoseconds
+     */
+    public Histogram timer(String name, String help, String... labels) {
+        return (Histogram) family(name, help, Type.SUMMARY).series()
+                .computeIfAbsent(labelText(labels), key -> new Histogram());
+    }
+
+    private Family family(String name, String help, Type type) {
+        if (!name.matches("[a-zA-Z_:][a-zA-Z0-9_:]*")) {
+            throw new IllegalArgumentException("Invalid metric name: " + name);
+        }
+        Family family = families.computeIfAbsent(name,
+                key -> new Family(name, help, type, new ConcurrentHashMap<>()));
+        if (family.type() != type) {
+            throw new IllegalArgumentException("Metric " + name + " is already a " + family.type());
+        }
+        return family;
+    }
+
+    private static String labelText(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as key and value pairs");
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(labels[i]).append("=\"");
+            for (char c : labels[i + 1].toCharArray()) {
+                switch (c) {
+                    case '\\' -> text.append("\\\\");
+                    case '"' -> text.append("\\\"");
+                    case '\n' -> text.append("\\n");
+                    default -> text.append(c);
+                }
+            }
+            text.append('"');
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return every metric in the Prometheus text format, sorted by name and labels
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder();
+        for (Family family : new TreeMap<>(families).values()) {
+            out.append("# HELP ").append(family.name()).append(' ')
+                    .append(family.help().replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+            out.append("# TYPE ").append(family.name()).append(' ')
+                    .append(family.type().name().toLowerCase()).append('\n');
+            for (Map.Entry<String, Object> entry : new TreeMap<>(family.series()).entrySet()) {
+                String labels = entry.getKey();
+                switch (entry.getValue()) {
+                    case Counter counter -> sample(out, family.name(), labels, counter.get());
+                    case DoubleSupplier source -> sample(out, family.name(), labels, source.getAsDouble());
+                    case Histogram histogram -> summary(out, family.name(), labels, histogram);
+                    default -> throw new IllegalStateException("Unknown series in " + family.name());
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private static void summary(StringBuilder out, String name, String labels, Histogram histogram) {
+        String separator = labels.isEmpty() ? "" : ",";
+        for (double quantile : QUANTILES) {
+            sample(out, name, labels + separator + "quantile=\"" + quantile + '"',
+                    seconds(histogram.valueAtQuantile(quantile)));
+        }
+        sample(out, name + "_sum", labels, seconds(histogram.getSum()));
+        sample(out, name + "_count", labels, histogram.getCount());
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        if (Double.isNaN(value)) {
+            out.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+}
@@ -0,0 +1,50 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ApplyUncheckedTests {
+
+    @Test
+    @DisplayName("Replaying A Move Log Matches makeMove")
+    public void replayMatchesMakeMove() throws InvalidMoveException {
+        Random random = new Random(240);
+        for (int game = 0; game < 20; game++) {
+            ChessGame played = new ChessGame();
+            List<ChessMove> log = new ArrayList<>();
+            for (int ply = 0; ply < 100; ply++) {
+                List<ChessMove> moves = new ArrayList<>(played.allValidMoves(played.getTeamTurn()));
+                if (moves.isEmpty()) {
+                    break;
+                }
+                ChessMove move = moves.get(random.nextInt(moves.size()));
+                played.makeMove(move);
+                log.add(move);
+            }
+
+            ChessGame replayed = new ChessGame();
+            for (ChessMove move : log) {
+                replayed.applyUnchecked(move);
+            }
+            Assertions.assertEquals(played.getBoard(), replayed.getBoard(), "Boards differ in game " + game);
+            Assertions.assertEquals(played.getTeamTurn(), replayed.getTeamTurn(), "Turns differ in game " + game);
+            Assertions.assertEquals(played.getPositionHash(), replayed.getPositionHash(),
+                    "Position keys differ in game " + game);
+        }
+    }
+
+    @Test
+    @DisplayName("Empty Start Square Is Rejected")
+    public void emptyStartSquare() {
+        ChessGame game = new ChessGame();
+        ChessMove move = new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 5), null);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> game.applyUnchecked(move));
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+}
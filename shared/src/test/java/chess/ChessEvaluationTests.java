@@ -0,0 +1,61 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ChessEvaluationTests {
+
+    @Test
+    @DisplayName("Starting Position Is Even")
+    public void startingPositionIsEven() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+
+        Assertions.assertEquals(0, board.getEvaluation().evaluate());
+        Assertions.assertEquals(ChessEvaluation.MAX_PHASE, board.getEvaluation().getPhase());
+    }
+
+    @Test
+    @DisplayName("Running Score Matches Full Scan")
+    public void runningScoreMatchesFullScan() throws InvalidMoveException {
+        Random random = new Random(240);
+        for (int game = 0; game < 30; game++) {
+            ChessGame chessGame = new ChessGame();
+            for (int ply = 0; ply < 120; ply++) {
+                List<ChessMove> moves = new ArrayList<>(chessGame.allValidMoves(chessGame.getTeamTurn()));
+                if (moves.isEmpty()) {
+                    break;
+                }
+                chessGame.makeMove(moves.get(random.nextInt(moves.size())));
+                ChessBoard board = chessGame.getBoard();
+                Assertions.assertEquals(ChessEvaluation.evaluate(board), board.getEvaluation().evaluate(),
+                        "Running evaluation drifted from a full scan in game " + game + " at ply " + ply);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Make And Unmake Restores Score")
+    public void makeAndUnmakeRestoresScore() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        int before = board.getEvaluation().evaluate();
+
+        ChessPosition start = new ChessPosition(2, 5);
+        ChessPosition end = new ChessPosition(7, 4);
+        ChessPiece pawn = board.getPiece(start);
+        ChessPiece captured = board.getPiece(end);
+        board.addPiece(start, null);
+        board.addPiece(end, pawn);
+        Assertions.assertNotEquals(before, board.getEvaluation().evaluate());
+
+        board.addPiece(end, captured);
+        board.addPiece(start, pawn);
+        Assertions.assertEquals(before, board.getEvaluation().evaluate());
+    }
+}
@@ -0,0 +1,101 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures evaluations per second for the running evaluation kept by
+ * ChessBoard against rescanning all 64 squares at every node.
+ * <p>
+ * Run with: java chess.EvaluationBenchmark [seconds]
+ */
+public class EvaluationBenchmark {
+
+    public static void main(String[] args) throws InvalidMoveException {
+        int seconds = (args.length > 0) ? Integer.parseInt(args[0]) : 3;
+        List<ChessBoard> positions = samplePositions(new Random(240), 200);
+
+        // Warm up both paths before timing them.
+        run(positions, 1, true);
+        run(positions, 1, false);
+
+        Measurement incremental = run(positions, seconds, true);
+        Measurement fullScan = run(positions, seconds, false);
+        System.out.printf("incremental: %,d evaluations/sec (checksum %d)%n",
+                incremental.evaluationsPerSecond(), incremental.checksum());
+        System.out.printf("full scan:   %,d evaluations/sec (checksum %d)%n",
+                fullScan.evaluationsPerSecond(), fullScan.checksum());
+    }
+
+    // The checksum is printed so the evaluations cannot be optimized away.
+    private record Measurement(long evaluationsPerSecond, long checksum) {
+    }
+
+    private static Measurement run(List<ChessBoard> positions, int seconds, boolean incremental) {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long evaluations = 0;
+        long checksum = 0;
+        long start = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            for (ChessBoard board : positions) {
+                for (ChessMove move : pseudoMoves(board)) {
+                    ChessPiece moving = board.getPiece(move.getStartPosition());
+                    ChessPiece captured = board.getPiece(move.getEndPosition());
+                    board.addPiece(move.getStartPosition(), null);
+                    board.addPiece(move.getEndPosition(), moving);
+                    checksum += incremental ? board.getEvaluation().evaluate() : ChessEvaluation.evaluate(board);
+                    board.addPiece(move.getEndPosition(), captured);
+                    board.addPiece(move.getStartPosition(), moving);
+                    evaluations++;
+                }
+            }
+        }
+        return new Measurement(evaluations * 1_000_000_000L / (System.nanoTime() - start), checksum);
+    }
+
+    private static Collection<ChessMove> pseudoMoves(ChessBoard board) {
+        Collection<ChessMove> moves = new ArrayList<>();
+        for (int i = 1; i <= 8; i++) {
+            for (int j = 1; j <= 8; j++) {
+                ChessPosition position = new ChessPosition(i, j);
+                ChessPiece piece = board.getPiece(position);
+                if (piece != null) {
+                    moves.addAll(piece.pieceMoves(board, position));
+                }
+            }
+        }
+        return moves;
+    }
+
+    // Plays random legal games and keeps a snapshot of every few positions.
+    private static List<ChessBoard> samplePositions(Random random, int count) throws InvalidMoveException {
+        List<ChessBoard> positions = new ArrayList<>();
+        while (positions.size() < count) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 80; ply++) {
+                List<ChessMove> moves = new ArrayList<>(game.allValidMoves(game.getTeamTurn()));
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+                if (ply % 8 == 7) {
+                    positions.add(copy(game.getBoard()));
+                }
+            }
+        }
+        return positions;
+    }
+
+    private static ChessBoard copy(ChessBoard board) {
+        ChessBoard copy = new ChessBoard();
+        for (int i = 1; i <= 8; i++) {
+            for (int j = 1; j <= 8; j++) {
+                ChessPosition position = new ChessPosition(i, j);
+                copy.addPiece(position, board.getPiece(position));
+            }
+        }
+        return copy;
+    }
+}
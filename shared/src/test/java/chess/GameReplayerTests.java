@@ -0,0 +1,54 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class GameReplayerTests {
+
+    @Test
+    @DisplayName("Bad Jobs Do Not Fail The Batch")
+    public void badJobsDoNotFailBatch() throws InvalidMoveException {
+        ChessBoard start = new ChessBoard();
+        start.resetBoard();
+        List<ChessMove> foolsMate = List.of(
+                move(2, 6, 3, 6), move(7, 5, 5, 5), move(2, 7, 4, 7), move(8, 4, 4, 8));
+        GameReplayer.ReplayJob good = new GameReplayer.ReplayJob(start, ChessGame.TeamColor.WHITE, foolsMate);
+        GameReplayer.ReplayJob illegal = new GameReplayer.ReplayJob(start, ChessGame.TeamColor.WHITE,
+                List.of(move(2, 5, 4, 5), move(7, 5, 4, 5)));
+        GameReplayer.ReplayJob malformed = new GameReplayer.ReplayJob(start, ChessGame.TeamColor.WHITE,
+                List.of(move(2, 5, 4, 5), new ChessMove(new ChessPosition(0, 5), new ChessPosition(6, 5), null)));
+
+        List<GameReplayer.ReplayResult> results = new GameReplayer().replayAll(List.of(good, illegal, malformed, good));
+        Assertions.assertEquals(4, results.size());
+
+        ChessGame expected = new ChessGame();
+        for (ChessMove move : foolsMate) {
+            expected.makeMove(move);
+        }
+        for (GameReplayer.ReplayResult result : List.of(results.get(0), results.get(3))) {
+            Assertions.assertTrue(result.isValid(), result.error());
+            Assertions.assertEquals(4, result.movesApplied());
+            Assertions.assertTrue(result.checkmate());
+            Assertions.assertEquals(expected.getPositionHash(), result.positionHash());
+        }
+
+        GameReplayer.ReplayResult rejected = results.get(1);
+        Assertions.assertFalse(rejected.isValid());
+        Assertions.assertEquals(1, rejected.movesApplied());
+        Assertions.assertTrue(rejected.error().startsWith("Move 2:"), rejected.error());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, rejected.teamTurn());
+
+        GameReplayer.ReplayResult broken = results.get(2);
+        Assertions.assertFalse(broken.isValid());
+        Assertions.assertEquals(1, broken.movesApplied());
+        Assertions.assertTrue(broken.error().startsWith("Move 2:"), broken.error());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, broken.teamTurn());
+    }
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+}
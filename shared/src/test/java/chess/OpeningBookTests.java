@@ -0,0 +1,156 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static passoff.chess.TestUtilities.loadBoard;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+public class OpeningBookTests {
+
+    @Test
+    @DisplayName("Move Encoding Round Trips")
+    public void moveEncodingRoundTrips() {
+        for (int startRow = 1; startRow <= 8; startRow++) {
+            for (int startCol = 1; startCol <= 8; startCol++) {
+                ChessMove move = new ChessMove(new ChessPosition(startRow, startCol),
+                        new ChessPosition(9 - startRow, 9 - startCol), null);
+                Assertions.assertEquals(move, ChessMove.decode(move.encode()));
+            }
+        }
+        for (ChessPiece.PieceType type : new ChessPiece.PieceType[]{ChessPiece.PieceType.QUEEN,
+                ChessPiece.PieceType.ROOK, ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT}) {
+            ChessMove promotion = new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 1), type);
+            Assertions.assertEquals(promotion, ChessMove.decode(promotion.encode()));
+        }
+    }
+
+    @Test
+    @DisplayName("Parse Standard Algebraic Notation")
+    public void parseSan() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(move(2, 5, 4, 5, null), OpeningBookBuilder.parseSan(game, "e4"));
+        Assertions.assertEquals(move(1, 7, 3, 6, null), OpeningBookBuilder.parseSan(game, "Nf3"));
+        Assertions.assertNull(OpeningBookBuilder.parseSan(game, "O-O"));
+        Assertions.assertNull(OpeningBookBuilder.parseSan(game, "e5"));
+        Assertions.assertNull(OpeningBookBuilder.parseSan(game, "Zz9"));
+
+        game.makeMove(move(2, 5, 4, 5, null));
+        game.makeMove(move(7, 4, 5, 4, null));
+        Assertions.assertEquals(move(4, 5, 5, 4, null), OpeningBookBuilder.parseSan(game, "exd5"));
+    }
+
+    @Test
+    @DisplayName("Parse Disambiguated And Promotion Moves")
+    public void parseDisambiguatedAndPromotion() {
+        ChessGame game = new ChessGame();
+        game.setBoard(loadBoard("""
+                |k| | | | | | | |
+                | |P| | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |N| | | |N| | |K|
+                """));
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+
+        Assertions.assertNull(OpeningBookBuilder.parseSan(game, "Nc2"), "Ambiguous move should not parse");
+        Assertions.assertEquals(move(1, 1, 2, 3, null), OpeningBookBuilder.parseSan(game, "Nac2"));
+        Assertions.assertEquals(move(1, 5, 2, 3, null), OpeningBookBuilder.parseSan(game, "Nec2+"));
+        Assertions.assertEquals(move(7, 2, 8, 2, ChessPiece.PieceType.QUEEN),
+                OpeningBookBuilder.parseSan(game, "b8=Q+"));
+        Assertions.assertEquals(move(7, 2, 8, 2, ChessPiece.PieceType.KNIGHT),
+                OpeningBookBuilder.parseSan(game, "b8=N"));
+        Assertions.assertNull(OpeningBookBuilder.parseSan(game, "b8"), "Promotion piece is required");
+    }
+
+    @Test
+    @DisplayName("Built Book Can Be Opened And Read")
+    public void buildOpenAndRead(@TempDir Path directory) throws IOException, InvalidMoveException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(OpeningBookBuilder.DEFAULT_MAX_PLIES);
+        builder.addPgn("""
+                [Event "One"]
+                [Result "1-0"]
+
+                1. e4 c5 2. Nf3 d6 1-0
+
+                [Event "Two"]
+                [Result "1/2-1/2"]
+
+                1. e4 e5 2. Nf3 {a comment} Nc6 (2... d6 3. d4) 1/2-1/2
+
+                [Event "Three"]
+                [Result "0-1"]
+
+                1. d4 Nf6 0-1
+                """);
+        Path file = directory.resolve("book.bin");
+        int written = builder.write(file);
+
+        OpeningBook book = OpeningBook.open(file);
+        Assertions.assertEquals(written, book.size());
+
+        ChessGame game = new ChessGame();
+        // e4 scored a win and a draw, d4 only a loss for white so it is left out.
+        Assertions.assertEquals(List.of(new OpeningBook.Entry(move(2, 5, 4, 5, null), 3)), book.getMoves(game));
+
+        game.makeMove(move(2, 5, 4, 5, null));
+        // Black lost with c5, so only the drawn e5 is kept.
+        Assertions.assertEquals(List.of(new OpeningBook.Entry(move(7, 5, 5, 5, null), 1)), book.getMoves(game));
+    }
+
+    @Test
+    @DisplayName("Semicolon Comment Ends At Its Line")
+    public void semicolonCommentEndsAtLine(@TempDir Path directory) throws IOException, InvalidMoveException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(OpeningBookBuilder.DEFAULT_MAX_PLIES);
+        builder.addPgn("""
+                [Result "1/2-1/2"]
+
+                1. e4 ; the king's pawn
+                c5 2. Nf3 1/2-1/2
+                """);
+        Path file = directory.resolve("book.bin");
+        builder.write(file);
+        OpeningBook book = OpeningBook.open(file);
+
+        ChessGame game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5, null));
+        Assertions.assertEquals(List.of(new OpeningBook.Entry(move(7, 3, 5, 3, null), 1)), book.getMoves(game));
+        game.makeMove(move(7, 3, 5, 3, null));
+        Assertions.assertEquals(List.of(new OpeningBook.Entry(move(1, 7, 3, 6, null), 1)), book.getMoves(game));
+    }
+
+    @Test
+    @DisplayName("Semicolon Inside Brace Comment Is Not A Line Comment")
+    public void semicolonInsideBraceComment(@TempDir Path directory) throws IOException, InvalidMoveException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(OpeningBookBuilder.DEFAULT_MAX_PLIES);
+        builder.addPgn("""
+                [Result "1/2-1/2"]
+
+                1. e4 {solid; main line} e5 2. Nf3 {a comment that
+                goes on; over two lines} Nc6 1/2-1/2
+                """);
+        Path file = directory.resolve("book.bin");
+        builder.write(file);
+        OpeningBook book = OpeningBook.open(file);
+
+        ChessGame game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5, null));
+        Assertions.assertEquals(List.of(new OpeningBook.Entry(move(7, 5, 5, 5, null), 1)), book.getMoves(game));
+        game.makeMove(move(7, 5, 5, 5, null));
+        game.makeMove(move(1, 7, 3, 6, null));
+        Assertions.assertEquals(List.of(new OpeningBook.Entry(move(8, 2, 6, 3, null), 1)), book.getMoves(game));
+    }
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol,
+                                  ChessPiece.PieceType promotion) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), promotion);
+    }
+}
@@ -0,0 +1,111 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static passoff.chess.TestUtilities.loadBoard;
+
+/**
+ * Checks the larger tables. These take several seconds to generate, so they
+ * are tagged slow and skipped by default; run them with
+ * mvn test -DexcludedTestGroups=none
+ */
+@Tag("slow")
+public class TablebaseSlowTests {
+
+    @TempDir
+    static Path directory;
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    public static void generate() throws IOException {
+        tablebase = new Tablebase(directory);
+        // Pawn promotions need KQK and KRK as well; KBK and KNK are dead draws and have no table.
+        tablebase.generate("KPK");
+    }
+
+    @Test
+    @DisplayName("Longest Wins Match Known Values")
+    public void longestWins() throws IOException {
+        Assertions.assertEquals(31, TablebaseTests.longestWin(directory, "KRK"));
+        Assertions.assertEquals(55, TablebaseTests.longestWin(directory, "KPK"));
+    }
+
+    @Test
+    @DisplayName("King In Front Of Pawn Wins")
+    public void kingInFrontOfPawnWins() {
+        ChessBoard board = loadBoard("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                | | | | |P| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """);
+
+        Assertions.assertEquals(Tablebase.Outcome.WIN, tablebase.probe(board, ChessGame.TeamColor.WHITE).outcome());
+        Assertions.assertEquals(Tablebase.Outcome.LOSS, tablebase.probe(board, ChessGame.TeamColor.BLACK).outcome());
+    }
+
+    @Test
+    @DisplayName("Rook Pawn With Defender In The Corner Draws")
+    public void rookPawnDraws() {
+        ChessBoard board = loadBoard("""
+                |k| | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |P| |K| | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """);
+
+        Assertions.assertEquals(new Tablebase.Result(Tablebase.Outcome.DRAW, 0),
+                tablebase.probe(board, ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(new Tablebase.Result(Tablebase.Outcome.DRAW, 0),
+                tablebase.probe(board, ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Mirrored Pawn Ending Gives The Same Result")
+    public void mirroredPawnEnding() {
+        ChessBoard white = loadBoard("""
+                | | | | | | | | |
+                | | | | | | | | |
+                | | |k| | | | | |
+                | | | | | | | | |
+                | | | | |P| | | |
+                | | | | |K| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """);
+        ChessBoard black = loadBoard("""
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |k| | | |
+                | | | | |p| | | |
+                | | | | | | | | |
+                | | |K| | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """);
+
+        for (ChessGame.TeamColor turn : ChessGame.TeamColor.values()) {
+            ChessGame.TeamColor mirroredTurn = (turn == ChessGame.TeamColor.WHITE)
+                    ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            Tablebase.Result result = tablebase.probe(white, turn);
+            Assertions.assertNotNull(result);
+            Assertions.assertEquals(result, tablebase.probe(black, mirroredTurn));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static passoff.chess.TestUtilities.loadBoard;
+
+public class TablebaseTests {
+
+    @TempDir
+    static Path directory;
+    private static Tablebase tablebase;
+
+    // Only KQK is generated here to keep the default test run quick; see TablebaseSlowTests for KRK and KPK.
+    @BeforeAll
+    public static void generate() throws IOException {
+        tablebase = new Tablebase(directory);
+        tablebase.generate("KQK");
+    }
+
+    @Test
+    @DisplayName("Longest Win Matches Known Value")
+    public void longestWin() throws IOException {
+        Assertions.assertEquals(19, longestWin(directory, "KQK"));
+    }
+
+    @Test
+    @DisplayName("Queen Wins Against Bare King")
+    public void queenWins() {
+        ChessBoard board = loadBoard("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | |Q|
+                """);
+
+        // Qh8 is mate in one.
+        Assertions.assertEquals(new Tablebase.Result(Tablebase.Outcome.WIN, 1),
+                tablebase.probe(board, ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(Tablebase.Outcome.LOSS, tablebase.probe(board, ChessGame.TeamColor.BLACK).outcome());
+    }
+
+    @Test
+    @DisplayName("Mirrored Colors Give The Same Result")
+    public void mirroredColors() {
+        ChessBoard white = loadBoard("""
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | |Q| | | | |
+                | | |K| | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """);
+        ChessBoard black = loadBoard("""
+                | | | | | | | | |
+                | | | | | | | | |
+                | | |k| | | | | |
+                | | | |q| | | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """);
+
+        for (ChessGame.TeamColor turn : ChessGame.TeamColor.values()) {
+            ChessGame.TeamColor mirroredTurn = (turn == ChessGame.TeamColor.WHITE)
+                    ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            Tablebase.Result result = tablebase.probe(white, turn);
+            Assertions.assertNotNull(result);
+            Assertions.assertEquals(result, tablebase.probe(black, mirroredTurn));
+        }
+    }
+
+    @Test
+    @DisplayName("King And Bishop Against King Is A Dead Draw")
+    public void kingAndBishopDraws() {
+        ChessBoard board = loadBoard("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | |B| |K| | | |
+                """);
+
+        Assertions.assertEquals(new Tablebase.Result(Tablebase.Outcome.DRAW, 0),
+                tablebase.probe(board, ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    @DisplayName("Damaged Table Probes As Missing")
+    public void damagedTable(@TempDir Path damaged) throws IOException {
+        Files.write(damaged.resolve("KQK.tb"), new byte[100]);
+        ChessBoard board = loadBoard("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | |Q| | | | |
+                """);
+
+        Assertions.assertNull(new Tablebase(damaged).probe(board, ChessGame.TeamColor.WHITE));
+    }
+
+    static int longestWin(Path directory, String signature) throws IOException {
+        int longest = 0;
+        for (byte value : Files.readAllBytes(directory.resolve(signature + ".tb"))) {
+            longest = Math.max(longest, value);
+        }
+        return longest;
+    }
+}
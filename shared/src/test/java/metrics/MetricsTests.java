@@ -0,0 +1,116 @@
+package metrics;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class MetricsTests {
+
+    @Test
+    @DisplayName("Buckets Cover Every Value")
+    public void bucketBounds() {
+        long previousHigh = -1;
+        for (int bucket = 0; bucket <= Histogram.bucketOf(Long.MAX_VALUE); bucket++) {
+            long high = Histogram.highestIn(bucket);
+            Assertions.assertTrue(high > previousHigh, "Bucket " + bucket + " should follow the one before it");
+            Assertions.assertEquals(bucket, Histogram.bucketOf(previousHigh + 1),
+                    "The value after bucket " + (bucket - 1) + " should start bucket " + bucket);
+            Assertions.assertEquals(bucket, Histogram.bucketOf(high));
+            previousHigh = high;
+        }
+        Assertions.assertEquals(Long.MAX_VALUE, previousHigh, "The last bucket should end at Long.MAX_VALUE");
+    }
+
+    @Test
+    @DisplayName("Quantiles Within Bucket Precision")
+    public void quantiles() {
+        Histogram histogram = new Histogram();
+        Assertions.assertEquals(0, histogram.valueAtQuantile(0.99), "An empty histogram should report 0");
+
+        Random random = new Random(7);
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1_000 + random.nextInt(1_000_000);
+            histogram.record(values[i]);
+        }
+        java.util.Arrays.sort(values);
+        for (double quantile : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            long exact = values[(int) Math.ceil(quantile * values.length) - 1];
+            long reported = histogram.valueAtQuantile(quantile);
+            Assertions.assertTrue(reported >= exact && reported <= exact * 1.125,
+                    "p" + quantile + " should be within 12.5% of " + exact + " but was " + reported);
+        }
+        Assertions.assertEquals(values.length, histogram.getCount());
+        Assertions.assertEquals(values[values.length - 1], histogram.valueAtQuantile(1.0),
+                "The top quantile should be capped at the largest value");
+    }
+
+    @Test
+    @DisplayName("Prometheus Text Format")
+    public void prometheusText() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("requests_total", "Requests served", "path", "/game").add(3);
+        registry.counter("requests_total", "Requests served", "path", "/game").increment();
+        registry.counter("requests_total", "Requests served", "path", "say \"hi\"\\\n");
+        registry.gauge("open_games", "Games in progress", () -> 2.5);
+        Histogram timer = registry.timer("move_seconds", "Move time");
+        timer.record(2_000_000);
+        timer.record(4_000_000);
+        // The median reports the top of the bucket holding 2ms; the rest are capped at the largest value.
+
+        String expected = """
+                # HELP move_seconds Move time
+                # TYPE move_seconds summary
+                move_seconds{quantile="0.5"} 0.002097151
+                move_seconds{quantile="0.9"} 0.004
+                move_seconds{quantile="0.99"} 0.004
+                move_seconds{quantile="0.999"} 0.004
+                move_seconds_sum 0.006
+                move_seconds_count 2
+                # HELP open_games Games in progress
+                # TYPE open_games gauge
+                open_games 2.5
+                # HELP requests_total Requests served
+                # TYPE requests_total counter
+                requests_total{path="/game"} 4
+                requests_total{path="say \\"hi\\"\\\\\\n"} 0
+                """;
+        Assertions.assertEquals(expected, registry.scrape());
+    }
+
+    @Test
+    @DisplayName("Names And Labels Checked")
+    public void invalidRegistration() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("moves_total", "Moves");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> registry.timer("moves_total", "Moves"),
+                "A name should keep the type it was first registered with");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> registry.counter("moves-total", "Moves"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> registry.counter("moves_total", "Moves", "path"));
+    }
+
+    @Test
+    @DisplayName("Rules Engine Timed")
+    public void rulesEngineTimed() throws Exception {
+        Histogram makeMove = MetricsRegistry.global().timer("chess_rules_seconds", "", "method", "makeMove");
+        Histogram checkmate = MetricsRegistry.global().timer("chess_rules_seconds", "", "method", "isInCheckmate");
+        long moves = makeMove.getCount();
+        long checkmates = checkmate.getCount();
+
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        Assertions.assertThrows(Exception.class,
+                () -> game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null)));
+        game.isInCheckmate(ChessGame.TeamColor.BLACK);
+
+        Assertions.assertEquals(moves + 2, makeMove.getCount(), "Rejected moves should be timed too");
+        Assertions.assertEquals(checkmates + 1, checkmate.getCount());
+        Assertions.assertTrue(MetricsRegistry.global().scrape()
+                .contains("chess_rules_seconds_count{method=\"isInStalemate\"}"));
+    }
+}